@@ -0,0 +1,81 @@
+package com.cobblebreeding.benchmark;
+
+import com.cobblebreeding.utils.HabitatMaskTable;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Habitat scoring for one 9x9x2 pasture footprint: the precomputed per-type bitmask table against the
+ * previous approach of flattening the type lists into fresh sets and hashing every block.
+ * Block raw IDs and type lists are synthetic stand-ins with roughly vanilla proportions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HabitatScoringBenchmark {
+
+    private static final int BLOCK_COUNT = 1100;
+    private static final int COLUMNS = 9 * 9;
+
+    private final Map<String, List<Integer>> baseByType = new HashMap<>();
+    private final Map<String, List<Integer>> decorByType = new HashMap<>();
+    private final List<String> parentTypes = List.of("grass", "poison");
+
+    private HabitatMaskTable table;
+    private int typeMask;
+    private int[] footprint;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Map<String, int[]> baseIds = new HashMap<>();
+        Map<String, int[]> decorIds = new HashMap<>();
+        for (String type : HabitatMaskTable.Companion.getTYPES()) {
+            int[] base = random.ints(12, 1, BLOCK_COUNT).toArray();
+            int[] decor = random.ints(14, 1, BLOCK_COUNT).toArray();
+            baseIds.put(type, base);
+            decorIds.put(type, decor);
+            baseByType.put(type, Arrays.stream(base).boxed().toList());
+            decorByType.put(type, Arrays.stream(decor).boxed().toList());
+        }
+        table = HabitatMaskTable.Companion.build(BLOCK_COUNT, baseIds, decorIds);
+        typeMask = HabitatMaskTable.Companion.typeMask(parentTypes);
+
+        // Half the footprint favourable, the rest random blocks.
+        footprint = new int[COLUMNS * 2];
+        int[] favourableBase = baseIds.get("grass");
+        int[] favourableDecor = decorIds.get("poison");
+        for (int i = 0; i < COLUMNS; i++) {
+            footprint[i] = (i % 2 == 0) ? favourableBase[i % favourableBase.length] : random.nextInt(BLOCK_COUNT);
+            footprint[COLUMNS + i] = (i % 2 == 0) ? favourableDecor[i % favourableDecor.length] : random.nextInt(BLOCK_COUNT);
+        }
+    }
+
+    @Benchmark
+    public int bitmaskTable() {
+        return table.countFavorable(footprint, 0, COLUMNS, COLUMNS, typeMask);
+    }
+
+    @Benchmark
+    public int setBased(Blackhole blackhole) {
+        Set<Integer> favourableBase = new HashSet<>();
+        Set<Integer> favourableDecor = new HashSet<>();
+        for (String type : parentTypes) {
+            favourableBase.addAll(baseByType.getOrDefault(type, List.of()));
+            favourableDecor.addAll(decorByType.getOrDefault(type, List.of()));
+        }
+        int count = 0;
+        for (int i = 0; i < COLUMNS; i++) {
+            if (favourableBase.contains(footprint[i])) count++;
+            if (favourableDecor.contains(footprint[COLUMNS + i])) count++;
+        }
+        blackhole.consume(favourableBase);
+        return count;
+    }
+}
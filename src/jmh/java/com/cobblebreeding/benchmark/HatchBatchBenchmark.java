@@ -0,0 +1,92 @@
+package com.cobblebreeding.benchmark;
+
+import com.cobblebreeding.utils.BaseFormCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving hatch templates for a batch of eggs: the cached base-form templates against walking the
+ * pre-evolution chain and parsing a properties string for every egg.
+ * Species are a synthetic forest of three-stage lines; "parsing" tokenises the string into a key/value map,
+ * standing in for {@code PokemonProperties.parse}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HatchBatchBenchmark {
+
+    private static final int SPECIES_LINES = 300;
+
+    record FakeSpecies(String id, FakeSpecies preEvolution) {}
+
+    @Param({"64", "1024"})
+    public int batchSize;
+
+    private final Map<String, FakeSpecies> speciesById = new HashMap<>();
+    private String[] eggTargets;
+    private BaseFormCache<FakeSpecies, Map<String, String>> cache;
+
+    @Setup
+    public void setup() {
+        for (int line = 0; line < SPECIES_LINES; line++) {
+            FakeSpecies base = new FakeSpecies("species" + line + "a", null);
+            FakeSpecies middle = new FakeSpecies("species" + line + "b", base);
+            FakeSpecies last = new FakeSpecies("species" + line + "c", middle);
+            speciesById.put(base.id(), base);
+            speciesById.put(middle.id(), middle);
+            speciesById.put(last.id(), last);
+        }
+
+        // Breeders favour a handful of lines, so batches repeat species.
+        Random random = new Random(42);
+        List<String> ids = new ArrayList<>(speciesById.keySet());
+        Collections.sort(ids);
+        eggTargets = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            eggTargets[i] = ids.get(random.nextInt(Math.min(ids.size(), 60)));
+        }
+
+        cache = new BaseFormCache<>(
+                id -> speciesById.get(id.toLowerCase(Locale.ROOT)),
+                FakeSpecies::preEvolution,
+                base -> parse(base.id() + " level=1")
+        );
+    }
+
+    @Benchmark
+    public void cachedTemplates(Blackhole blackhole) {
+        for (String target : eggTargets) {
+            blackhole.consume(cache.get(target));
+        }
+    }
+
+    @Benchmark
+    public void resolvePerEgg(Blackhole blackhole) {
+        for (String target : eggTargets) {
+            FakeSpecies species = speciesById.get(target.toLowerCase(Locale.ROOT));
+            while (species.preEvolution() != null) {
+                species = species.preEvolution();
+            }
+            blackhole.consume(parse(species.id() + " level=1"));
+        }
+    }
+
+    private static Map<String, String> parse(String properties) {
+        Map<String, String> parsed = new HashMap<>();
+        for (String token : properties.split(" ")) {
+            int separator = token.indexOf('=');
+            if (separator < 0) {
+                parsed.put("species", token);
+            } else {
+                parsed.put(token.substring(0, separator).toLowerCase(Locale.ROOT), token.substring(separator + 1));
+            }
+        }
+        return parsed;
+    }
+}
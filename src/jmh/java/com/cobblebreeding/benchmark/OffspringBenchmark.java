@@ -0,0 +1,88 @@
+package com.cobblebreeding.benchmark;
+
+import com.cobblebreeding.utils.OffspringRules;
+import kotlin.random.Random;
+import kotlin.random.RandomKt;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IV and nature inheritance for one egg: the primitive {@link OffspringRules} against the previous approach of
+ * building a stat map, a power-item map and a shuffled list of remaining stats per egg.
+ * Stats are stand-in strings and parents are plain IV arrays.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffspringBenchmark {
+
+    private static final List<String> STATS = List.of("hp", "attack", "defence", "special_attack", "special_defence", "speed");
+
+    @Param({"false", "true"})
+    public boolean destinyKnot;
+
+    private final int[] maleIvs = {31, 4, 20, 31, 12, 9};
+    private final int[] femaleIvs = {0, 31, 18, 7, 31, 25};
+    private final int[] out = new int[OffspringRules.STAT_COUNT];
+    private final Map<String, Integer> maleIvMap = new HashMap<>();
+    private final Map<String, Integer> femaleIvMap = new HashMap<>();
+
+    private Random random;
+    private java.util.Random javaRandom;
+
+    @Setup
+    public void setup() {
+        random = RandomKt.Random(42L);
+        javaRandom = new java.util.Random(42L);
+        for (int i = 0; i < STATS.size(); i++) {
+            maleIvMap.put(STATS.get(i), maleIvs[i]);
+            femaleIvMap.put(STATS.get(i), femaleIvs[i]);
+        }
+    }
+
+    @Benchmark
+    public int[] primitiveRules() {
+        return OffspringRules.INSTANCE.inheritIvs(maleIvs, femaleIvs, 1, OffspringRules.NO_STAT, destinyKnot, random, out);
+    }
+
+    @Benchmark
+    public Map<String, Integer> mapBased() {
+        Map<String, Integer> finalIvs = new HashMap<>();
+        List<String> availableStats = new ArrayList<>(STATS);
+        int ivsToInherit = destinyKnot ? 5 : 3;
+        int inheritedCount = 0;
+
+        Map<String, Map<String, Integer>> powerItemParents = new LinkedHashMap<>();
+        powerItemParents.put("attack", maleIvMap);
+        for (Map.Entry<String, Map<String, Integer>> entry : powerItemParents.entrySet()) {
+            if (availableStats.contains(entry.getKey()) && inheritedCount < ivsToInherit) {
+                finalIvs.put(entry.getKey(), entry.getValue().getOrDefault(entry.getKey(), 0));
+                availableStats.remove(entry.getKey());
+                inheritedCount++;
+            }
+        }
+
+        int randomly = ivsToInherit - inheritedCount;
+        Collections.shuffle(availableStats, javaRandom);
+        List<String> chosen = new ArrayList<>(availableStats.subList(0, Math.min(randomly, availableStats.size())));
+        for (String stat : chosen) {
+            Map<String, Integer> parent = javaRandom.nextBoolean() ? maleIvMap : femaleIvMap;
+            finalIvs.put(stat, parent.getOrDefault(stat, 0));
+        }
+        availableStats.removeAll(new HashSet<>(chosen));
+        for (String stat : availableStats) {
+            finalIvs.putIfAbsent(stat, javaRandom.nextInt(32));
+        }
+        return finalIvs;
+    }
+
+    @Benchmark
+    public int natureSource() {
+        return OffspringRules.INSTANCE.natureSource(destinyKnot, true, random);
+    }
+}
@@ -0,0 +1,69 @@
+package com.cobblebreeding.benchmark;
+
+import com.cobblebreeding.utils.PairMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Finding the breeding pair in one pasture: the single-pass {@link PairMatcher} against the previous chain of
+ * filters and a groupBy over (tether, Pokémon) pairs. The pasture holds only males of several species, the case
+ * that used to be re-analysed on every visit. Species are stand-in strings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PairMatcherBenchmark {
+
+    record FakePokemon(String species, int kind) {}
+
+    @Param({"4", "16", "30"})
+    public int tethered;
+
+    private final PairMatcher matcher = new PairMatcher(8);
+    private FakePokemon[] pasture;
+
+    @Setup
+    public void setup() {
+        pasture = new FakePokemon[tethered];
+        for (int i = 0; i < tethered; i++) {
+            pasture[i] = new FakePokemon("species" + (i % 5), PairMatcher.MALE);
+        }
+    }
+
+    @Benchmark
+    public long singlePass() {
+        matcher.reset(pasture.length);
+        for (FakePokemon pokemon : pasture) {
+            matcher.add(pokemon.kind(), pokemon.species());
+        }
+        return matcher.match();
+    }
+
+    @Benchmark
+    public Object filterAndGroup() {
+        List<FakePokemon> all = Arrays.asList(pasture);
+        List<FakePokemon> dittos = all.stream().filter(p -> p.kind() == PairMatcher.DITTO).toList();
+        List<FakePokemon> genderless = all.stream().filter(p -> p.kind() == PairMatcher.GENDERLESS).toList();
+        List<FakePokemon> gendered = all.stream()
+                .filter(p -> p.kind() == PairMatcher.MALE || p.kind() == PairMatcher.FEMALE).toList();
+        if (dittos.size() == 1) {
+            if (!genderless.isEmpty()) return genderless.get(0);
+            if (!gendered.isEmpty()) return gendered.get(0);
+        }
+        Map<String, List<FakePokemon>> bySpecies = gendered.stream()
+                .collect(Collectors.groupingBy(FakePokemon::species, LinkedHashMap::new, Collectors.toList()));
+        for (List<FakePokemon> group : bySpecies.values()) {
+            if (group.size() < 2) continue;
+            List<FakePokemon> males = group.stream().filter(p -> p.kind() == PairMatcher.MALE).toList();
+            List<FakePokemon> females = group.stream().filter(p -> p.kind() == PairMatcher.FEMALE).toList();
+            if (!males.isEmpty() && !females.isEmpty()) return males.get(0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.cobblebreeding.benchmark;
+
+import com.cobblebreeding.utils.EggSlots;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One step-crediting pass over every carrier's party: {@link EggSlots} bitmask crediting against the previous
+ * per-slot map reads and writes of step counters. Eggs never finish here, so each invocation does the same work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StepCreditBenchmark {
+
+    private static final int TOTAL_STEPS = Integer.MAX_VALUE / 2;
+
+    @Param({"10", "200"})
+    public int carriers;
+
+    private EggSlots[] parties;
+    private List<List<Map<String, Object>>> mapParties;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        parties = new EggSlots[carriers];
+        mapParties = new ArrayList<>(carriers);
+        for (int p = 0; p < carriers; p++) {
+            EggSlots slots = new EggSlots();
+            List<Map<String, Object>> party = new ArrayList<>(EggSlots.PARTY_SIZE);
+            for (int slot = 0; slot < EggSlots.PARTY_SIZE; slot++) {
+                Map<String, Object> data = new HashMap<>();
+                if (slot % 2 == 0) {
+                    slots.set(slot, 0, TOTAL_STEPS);
+                    data.put("is_egg", true);
+                    data.put("currentHatchSteps", 0);
+                    data.put("totalHatchSteps", TOTAL_STEPS);
+                }
+                party.add(data);
+            }
+            parties[p] = slots;
+            mapParties.add(party);
+        }
+    }
+
+    @Benchmark
+    public int bitmaskSlots() {
+        int ready = 0;
+        for (EggSlots slots : parties) {
+            ready |= slots.credit(3);
+            slots.markClean(slots.getDirtyMask());
+        }
+        return ready;
+    }
+
+    @Benchmark
+    public int perSlotMaps() {
+        int ready = 0;
+        for (List<Map<String, Object>> party : mapParties) {
+            for (Map<String, Object> data : party) {
+                if (!Boolean.TRUE.equals(data.get("is_egg"))) continue;
+                int current = (Integer) data.get("currentHatchSteps");
+                int total = (Integer) data.get("totalHatchSteps");
+                if (current >= total) continue;
+                int updated = Math.min(total, current + 3);
+                data.put("currentHatchSteps", updated);
+                if (updated >= total) ready++;
+            }
+        }
+        return ready;
+    }
+}
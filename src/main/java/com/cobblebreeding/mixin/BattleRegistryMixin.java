@@ -2,10 +2,10 @@
 package com.cobblebreeding.mixin;
 
 
+import com.cobblebreeding.utils.EggCodec;
 import com.cobblemon.mod.common.battles.BattleRegistry;
 import com.cobblemon.mod.common.battles.pokemon.BattlePokemon;
 import com.cobblemon.mod.common.pokemon.Pokemon;
-import net.minecraft.nbt.NbtCompound;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
@@ -35,20 +35,13 @@ public abstract class BattleRegistryMixin {
         return BattleRegistry.INSTANCE.packTeam(team);
     }
 
-    @Unique
-    private static final String EGG_NBT_KEY = "is_egg"; // Use the same key as in PastureBlockMixin
-
     /**
-     * Checks if the given Pokemon instance is marked as an Egg via NBT data.
+     * Checks if the given Pokemon instance is an Egg.
      * @param pokemon The Pokemon instance to check.
-     * @return true if the Pokemon is not null and has the "is_egg" NBT tag set to true, false otherwise.
+     * @return true if the Pokemon is not null and carries egg data, false otherwise.
      */
     @Unique
     private static boolean isEgg(Pokemon pokemon) {
-        if (pokemon == null) {
-            return false;
-        }
-        NbtCompound pData = pokemon.getPersistentData();
-        return pData.getBoolean(EGG_NBT_KEY); // Returns false if the key doesn't exist or is false
+        return EggCodec.INSTANCE.isEgg(pokemon);
     }
 }
\ No newline at end of file
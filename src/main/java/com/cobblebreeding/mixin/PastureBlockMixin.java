@@ -1,6 +1,7 @@
 package com.cobblebreeding.mixin;
 
 import com.cobblebreeding.CobblemonBreeding;
+import com.cobblebreeding.utils.EggCodec;
 import com.cobblemon.mod.common.Cobblemon;
 import com.cobblemon.mod.common.api.storage.party.PartyStore;
 import com.cobblemon.mod.common.api.storage.pc.PCStore;
@@ -35,8 +36,6 @@ import java.util.UUID;
 @Mixin(value = PastureBlock.class, remap = false)
 public abstract class PastureBlockMixin {
 
-    private static final String EGG_NBT_KEY = "is_egg";
-
     @Inject(method = "onUse", at = @At("HEAD"), cancellable = true)
     private void cobblebreeding_onUseBottomBlock(
             BlockState state,
@@ -66,7 +65,7 @@ public abstract class PastureBlockMixin {
                         for (int i = tetheredList.size() - 1; i >= 0; i--) {
                             PokemonPastureBlockEntity.Tethering currentTethering = tetheredList.get(i);
                             Pokemon currentPokemon = currentTethering.getPokemon();
-                            if (currentPokemon != null && currentPokemon.getPersistentData().getBoolean(EGG_NBT_KEY)) {
+                            if (EggCodec.INSTANCE.isEgg(currentPokemon)) {
                                 targetTethering = currentTethering;
                                 targetPokemonUUID = currentTethering.getPokemonId();
                                 ownerUUID = currentTethering.getPlayerId();
@@ -110,7 +109,7 @@ public abstract class PastureBlockMixin {
                             return;
                         }
 
-                        if (!pokemonInPC.getPersistentData().getBoolean(EGG_NBT_KEY)) {
+                        if (!EggCodec.INSTANCE.isEgg(pokemonInPC)) {
                             serverPlayer.sendMessage(Text.literal("Error: Data mismatch (PC Pokemon is not an Egg). Please contact an admin.").formatted(Formatting.RED), false);
                             cir.setReturnValue(ActionResult.FAIL);
                             return;
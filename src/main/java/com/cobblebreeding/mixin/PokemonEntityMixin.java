@@ -0,0 +1,23 @@
+package com.cobblebreeding.mixin;
+
+import com.cobblebreeding.utils.WalkGoalHolder;
+import com.cobblebreeding.utils.WalkToPositionGoal;
+import com.cobblemon.mod.common.entity.pokemon.PokemonEntity;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+
+@Mixin(value = PokemonEntity.class, remap = false)
+public abstract class PokemonEntityMixin implements WalkGoalHolder {
+
+    @Unique private WalkToPositionGoal cobblebreeding_walkGoal;
+
+    @Override
+    public WalkToPositionGoal getBreedingWalkGoal() {
+        return this.cobblebreeding_walkGoal;
+    }
+
+    @Override
+    public void setBreedingWalkGoal(WalkToPositionGoal goal) {
+        this.cobblebreeding_walkGoal = goal;
+    }
+}
@@ -1,7 +1,12 @@
 package com.cobblebreeding.mixin;
 
+import com.cobblebreeding.BreedingState;
 import com.cobblebreeding.CobblemonBreeding;
-import com.cobblebreeding.utils.ReturnToPastureGoal;
+import com.cobblebreeding.utils.BreedingRecord;
+import com.cobblebreeding.utils.BreedingRecordHolder;
+import com.cobblebreeding.utils.BreedingTrace;
+import com.cobblebreeding.utils.PastureEntityIndex;
+import com.cobblebreeding.utils.TraceCategory;
 import com.cobblemon.mod.common.api.storage.pc.PCStore;
 import com.cobblemon.mod.common.block.entity.PokemonPastureBlockEntity;
 
@@ -9,8 +14,10 @@ import com.cobblemon.mod.common.entity.pokemon.PokemonEntity;
 import com.cobblemon.mod.common.pokemon.Pokemon;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
-import net.minecraft.entity.ai.goal.GoalSelector;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.registry.RegistryWrapper;
 import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.math.BlockPos;
@@ -32,7 +39,7 @@ import java.util.UUID;
 
 
 @Mixin(value = PokemonPastureBlockEntity.class, remap = false)
-public abstract class PokemonPastureBlockEntityMixin extends BlockEntity {
+public abstract class PokemonPastureBlockEntityMixin extends BlockEntity implements BreedingRecordHolder {
 
     public PokemonPastureBlockEntityMixin(BlockPos blockPos, BlockState blockState) {
         super(null, blockPos, blockState);
@@ -45,28 +52,37 @@ public abstract class PokemonPastureBlockEntityMixin extends BlockEntity {
     @Unique private static final int CUSTOM_PASTURE_RADIUS = 5;
     @Unique private static final int CUSTOM_PASTURE_EXTRA_HEIGHT_ABOVE = 6;
 
+    @Unique private BreedingRecord cobblebreeding_pendingRecord;
+
+    @Override
+    public BreedingRecord getPendingBreedingRecord() {
+        return this.cobblebreeding_pendingRecord;
+    }
+
+    @Override
+    public void setPendingBreedingRecord(BreedingRecord record) {
+        this.cobblebreeding_pendingRecord = record;
+    }
+
 
     @Unique
     private void applyCustomRadius(String context) {
         BlockPos centerPos = this.getPos();
-        BlockPos currentMin = this.minRoamPos;
-        BlockPos currentMax = this.maxRoamPos;
-        CBMixinLogger.info("[{}] Center Pos: {}", context, centerPos);
-        CBMixinLogger.info("[{}] BEFORE Apply Custom Radius: Min={}, Max={}", context,
-                currentMin != null ? currentMin.toString() : "null",
-                currentMax != null ? currentMax.toString() : "null");
+        BlockPos previousMin = this.minRoamPos;
+        BlockPos previousMax = this.maxRoamPos;
 
         this.minRoamPos = centerPos.subtract(new Vec3i(CUSTOM_PASTURE_RADIUS, CUSTOM_PASTURE_RADIUS, CUSTOM_PASTURE_RADIUS));
         this.maxRoamPos = centerPos.add(new Vec3i(CUSTOM_PASTURE_RADIUS, CUSTOM_PASTURE_RADIUS + CUSTOM_PASTURE_EXTRA_HEIGHT_ABOVE, CUSTOM_PASTURE_RADIUS));
 
-        CBMixinLogger.info("[{}] AFTER Apply Custom Radius (H:{}, Y_UP_Extra:{}): Min={}, Max={}", context, CUSTOM_PASTURE_RADIUS, CUSTOM_PASTURE_EXTRA_HEIGHT_ABOVE, this.minRoamPos, this.maxRoamPos);
+        if (BreedingTrace.INSTANCE.isEnabled(TraceCategory.PASTURE)) {
+            BreedingTrace.INSTANCE.record(TraceCategory.PASTURE, "radius",
+                    context + " center=" + centerPos + " before=" + previousMin + ".." + previousMax + " after=" + this.minRoamPos + ".." + this.maxRoamPos);
+        }
     }
 
     @Inject(method = "<init>(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;)V", at = @At("TAIL"))
     private void cobblebreeding_onInitTail(BlockPos initialPos, BlockState state, CallbackInfo ci) {
-        CBMixinLogger.info("PokemonPastureBlockEntity <init> TAIL reached for {}.", initialPos);
         applyCustomRadius("INIT");
-        CBMixinLogger.info("[INIT] Final values after init injection: Min={}, Max={}", this.minRoamPos, this.maxRoamPos);
     }
 
     @Inject(
@@ -78,24 +94,47 @@ public abstract class PokemonPastureBlockEntityMixin extends BlockEntity {
             ),
             locals = LocalCapture.CAPTURE_FAILHARD
     )
-    private void cobblebreeding_addReturnGoalOnTether(ServerPlayerEntity player, Pokemon pokemon, Direction directionToBehind, CallbackInfoReturnable<Boolean> cir, World world, PokemonEntity entity, double width, BlockPos idealPlace, Box box, int i, BlockPos fixedPosition, PCStore pc, PokemonPastureBlockEntity.Tethering tethering) {
+    private void cobblebreeding_onTether(ServerPlayerEntity player, Pokemon pokemon, Direction directionToBehind, CallbackInfoReturnable<Boolean> cir, World world, PokemonEntity entity, double width, BlockPos idealPlace, Box box, int i, BlockPos fixedPosition, PCStore pc, PokemonPastureBlockEntity.Tethering tethering) {
         if (entity != null) {
-            try {
-                GoalSelector goalSelector = ((MobEntityAccessor) entity).getGoalSelector();
-                goalSelector.add(2, new ReturnToPastureGoal(entity, 1.0D));
-                CBMixinLogger.info("Added ReturnToPastureGoal to tethered Pokémon: {}", entity.getName().getString());
-            } catch (Exception e) {
-                CBMixinLogger.error("Failed to add ReturnToPastureGoal to entity {}", entity.getName().getString(), e);
-            }
+            PastureEntityIndex.INSTANCE.track(entity);
         } else {
-            CBMixinLogger.warn("Tried to add ReturnToPastureGoal, but captured entity was null in tether method!");
+            CBMixinLogger.warn("Captured entity was null in tether method!");
+        }
+        cobblebreeding_notifyTethersChanged();
+    }
+
+    @Inject(method = "releasePokemon", at = @At("TAIL"))
+    private void cobblebreeding_onReleasePokemon(UUID pokemonId, CallbackInfo ci) {
+        PastureEntityIndex.INSTANCE.untrack(pokemonId);
+        cobblebreeding_notifyTethersChanged();
+    }
+
+    @Unique
+    private void cobblebreeding_notifyTethersChanged() {
+        if (this.getWorld() instanceof ServerWorld serverWorld) {
+            CobblemonBreeding.INSTANCE.onPastureTethersChanged(serverWorld, this.getPos());
+        }
+    }
+
+    @Inject(method = "readNbt", at = @At("TAIL"), remap = true)
+    private void cobblebreeding_readBreedingRecord(NbtCompound nbt, RegistryWrapper.WrapperLookup registryLookup, CallbackInfo ci) {
+        this.cobblebreeding_pendingRecord = BreedingRecord.Companion.readNbt(nbt);
+    }
+
+    @Inject(method = "writeNbt", at = @At("TAIL"), remap = true)
+    private void cobblebreeding_writeBreedingRecord(NbtCompound nbt, RegistryWrapper.WrapperLookup registryLookup, CallbackInfo ci) {
+        if (!(this.getWorld() instanceof ServerWorld serverWorld)) return;
+        BreedingState state = CobblemonBreeding.INSTANCE.getBreedingState(serverWorld, this.getPos());
+        if (state == null) return;
+        BreedingRecord record = BreedingRecord.Companion.capture(state, serverWorld.getTime());
+        if (record != null) {
+            record.writeNbt(nbt);
         }
     }
 
     @Inject(method = "tether", at = @At("HEAD"))
     private void cobblebreeding_onGetTetheredPokemon(CallbackInfoReturnable<List<PokemonPastureBlockEntity.Tethering>> cir) {
         applyCustomRadius("GET_TETHERED");
-        CBMixinLogger.info("[GET_TETHERED] Check/Apply Radius: Min={}, Max={}", this.minRoamPos, this.maxRoamPos);
     }
 
 
@@ -133,15 +172,18 @@ public abstract class PokemonPastureBlockEntityMixin extends BlockEntity {
 
         if (isFirstDitto && isNewDitto) {
             player.sendMessage(Text.literal("You cannot place two Dittos together for breeding.").formatted(Formatting.RED), false);
-            CBMixinLogger.info("Tether cancelled: Attempted to add Ditto to existing Ditto.");
+            if (BreedingTrace.INSTANCE.isEnabled(TraceCategory.TETHER)) {
+                cobblebreeding_traceTether("cancelled", "two dittos");
+            }
             cir.setReturnValue(false);
             return;
         }
 
 
         if (isFirstDitto || isNewDitto) {
-            CBMixinLogger.info("Tether compatibility check passed: Ditto involved. First='{}'(Ditto={}), New='{}'(Ditto={})",
-                    firstSpeciesName, isFirstDitto, newSpeciesName, isNewDitto);
+            if (BreedingTrace.INSTANCE.isEnabled(TraceCategory.TETHER)) {
+                cobblebreeding_traceTether("allowed", "ditto pair first=" + firstSpeciesName + " new=" + newSpeciesName);
+            }
             return;
         }
 
@@ -154,7 +196,9 @@ public abstract class PokemonPastureBlockEntityMixin extends BlockEntity {
 
         if (isFirstGenderless && isNewGenderless) {
             player.sendMessage(Text.literal("You cannot place two Genderless Pokémon together for breeding.").formatted(Formatting.RED), false);
-            CBMixinLogger.info("Tether cancelled: Attempted to add non-Ditto Genderless ({}) to existing non-Ditto Genderless ({}).", newSpeciesName, firstSpeciesName);
+            if (BreedingTrace.INSTANCE.isEnabled(TraceCategory.TETHER)) {
+                cobblebreeding_traceTether("cancelled", "two genderless first=" + firstSpeciesName + " new=" + newSpeciesName);
+            }
             cir.setReturnValue(false);
             return;
         }
@@ -162,8 +206,9 @@ public abstract class PokemonPastureBlockEntityMixin extends BlockEntity {
 
         if (isFirstGenderless || isNewGenderless) {
             player.sendMessage(Text.literal("Genderless Pokémon can only breed with Ditto.").formatted(Formatting.RED), false);
-            CBMixinLogger.info("Tether cancelled: Attempted to mix non-Ditto Genderless and non-Ditto Gendered. First='{}'(Genderless={}), New='{}'(Genderless={})",
-                    firstSpeciesName, isFirstGenderless, newSpeciesName, isNewGenderless);
+            if (BreedingTrace.INSTANCE.isEnabled(TraceCategory.TETHER)) {
+                cobblebreeding_traceTether("cancelled", "genderless with gendered first=" + firstSpeciesName + " new=" + newSpeciesName);
+            }
             cir.setReturnValue(false);
             return;
         }
@@ -172,13 +217,22 @@ public abstract class PokemonPastureBlockEntityMixin extends BlockEntity {
 
         if (!firstSpeciesName.equalsIgnoreCase(newSpeciesName)) {
             player.sendMessage(Text.literal("This pasture only accepts Pokémon of the same species, or compatible pairs with Ditto.").formatted(Formatting.RED), false);
-            CBMixinLogger.info("Tether cancelled: Mismatched species ({} vs {}) for non-Ditto, non-Genderless pair.", firstSpeciesName, newSpeciesName);
+            if (BreedingTrace.INSTANCE.isEnabled(TraceCategory.TETHER)) {
+                cobblebreeding_traceTether("cancelled", "species mismatch first=" + firstSpeciesName + " new=" + newSpeciesName);
+            }
             cir.setReturnValue(false);
             return;
         }
 
 
-        CBMixinLogger.info("Tether compatibility check passed: Same species M/F pair. First='{}', New='{}'", firstSpeciesName, newSpeciesName);
+        if (BreedingTrace.INSTANCE.isEnabled(TraceCategory.TETHER)) {
+            cobblebreeding_traceTether("allowed", "same species first=" + firstSpeciesName + " new=" + newSpeciesName);
+        }
+    }
+
+    @Unique
+    private void cobblebreeding_traceTether(String event, String detail) {
+        BreedingTrace.INSTANCE.record(TraceCategory.TETHER, event, "pasture=" + this.getPos() + " " + detail);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.cobblebreeding.mixin;
+
+import com.cobblebreeding.utils.BlockChangeDispatcher;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(ServerWorld.class)
+public abstract class ServerWorldMixin {
+
+    /**
+     * Forwards every committed block change to the breeding listeners (habitat counters).
+     * The dispatcher returns immediately when nothing is watching the changed chunk.
+     */
+    @Inject(method = "onBlockChanged", at = @At("HEAD"))
+    private void cobblebreeding_onBlockChanged(BlockPos pos, BlockState oldBlock, BlockState newBlock, CallbackInfo ci) {
+        BlockChangeDispatcher.INSTANCE.onBlockChanged((ServerWorld) (Object) this, pos, oldBlock, newBlock);
+    }
+}
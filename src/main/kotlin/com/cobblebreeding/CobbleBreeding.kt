@@ -1,11 +1,32 @@
 package com.cobblebreeding
 
+import com.cobblebreeding.utils.BlockChangeDispatcher
+import com.cobblebreeding.utils.BreedingCommands
+import com.cobblebreeding.utils.BreedingConfig
+import com.cobblebreeding.utils.BreedingDebugCommands
+import com.cobblebreeding.utils.BreedingEffects
 import com.cobblebreeding.utils.BreedingManager
+import com.cobblebreeding.utils.BreedingRecordHolder
+import com.cobblebreeding.utils.BreedingTrace
+import com.cobblebreeding.utils.EggCarrierRegistry
+import com.cobblebreeding.utils.EggCodec
+import com.cobblebreeding.utils.EggFactory
+import com.cobblebreeding.utils.HabitatTracker
 import com.cobblebreeding.utils.HatchManager
+import com.cobblebreeding.utils.LeashSweeper
+import com.cobblebreeding.utils.PastureEntityIndex
+import com.cobblebreeding.utils.PastureScheduler
+import com.cobblebreeding.utils.PastureSurfaceCache
+import com.cobblebreeding.utils.PastureSyncBatcher
 import com.cobblemon.mod.common.block.entity.PokemonPastureBlockEntity
+import com.cobblemon.mod.common.entity.pokemon.PokemonEntity
 import net.fabricmc.api.ModInitializer
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents
+import net.fabricmc.loader.api.FabricLoader
 import net.minecraft.registry.RegistryKey
 import net.minecraft.server.world.ServerWorld
 import net.minecraft.util.Identifier
@@ -13,7 +34,9 @@ import net.minecraft.util.math.BlockPos
 import net.minecraft.util.math.Vec3d
 import net.minecraft.world.World
 import java.util.*
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicReference
 
 data class WorldBlockPos(val dimensionId: Identifier, val pos: BlockPos) {
     constructor(worldKey: RegistryKey<World>, pos: BlockPos) : this(worldKey.value, pos.toImmutable())
@@ -30,47 +53,91 @@ data class BreedingState(
     var jumpCount: Int = 0,
     var lastJumpTick: Long = 0L,
     var heartsPlayed: Boolean = false,
+    var lastParticleTick: Long = 0L,
+    var parentsGraceUntilTick: Long = 0L,
+    var offlineCatchUpPending: Boolean = false,
     var breedingDurationTicks: Long = BreedingManager.BASE_BREEDING_DURATION_TICKS,
     var breedingTier: Int = 1,
+    var habitatTypeMask: Int = 0,
     var needsDurationCalc: Boolean = false,
     var isCalculatingDuration: Boolean = false,
     var isDittoPair: Boolean = false
-)
+) {
+    /**
+     * Bumped whenever a pair starts, is restored or is cancelled. Work that leaves the server thread captures it
+     * and only applies its result if the generation is unchanged when it comes back.
+     */
+    var generation: Int = 0
+        private set
+
+    private val published = AtomicReference(BreedingSnapshot.IDLE)
+
+    /** Latest published view of this state; safe to read from any thread. */
+    val snapshot: BreedingSnapshot
+        get() = published.get()
+
+    fun nextGeneration(): Int = ++generation
+
+    /**
+     * Publishes the current fields as a [BreedingSnapshot]. The mutable fields above stay server-thread only;
+     * the compare-and-set keeps a snapshot from an older generation from replacing a newer one.
+     */
+    fun publish() {
+        val next = BreedingSnapshot(
+            generation, malePokemonUUID, femalePokemonUUID, breedingStartTick, breedingDurationTicks, breedingTier, isDittoPair
+        )
+        while (true) {
+            val current = published.get()
+            if (current.generation > next.generation || published.compareAndSet(current, next)) return
+        }
+    }
+}
+
+/** Immutable copy of a [BreedingState]'s breeding progress, for readers off the server thread. */
+data class BreedingSnapshot(
+    val generation: Int,
+    val malePokemonUUID: UUID?,
+    val femalePokemonUUID: UUID?,
+    val breedingStartTick: Long?,
+    val breedingDurationTicks: Long,
+    val breedingTier: Int,
+    val isDittoPair: Boolean
+) {
+    val isBreeding: Boolean
+        get() = breedingStartTick != null
+
+    companion object {
+        val IDLE = BreedingSnapshot(0, null, null, null, BreedingManager.BASE_BREEDING_DURATION_TICKS, 1, false)
+    }
+}
 
 object CobblemonBreeding : ModInitializer {
     const val MOD_ID = "cobblemonbreeding"
     internal const val PREFIX = "[$MOD_ID] "
-    internal val pastureBreedingStates = mutableMapOf<WorldBlockPos, BreedingState>()
+    /** Mutated on the server thread only; concurrent so other threads can look up states and read their snapshots. */
+    internal val pastureBreedingStates = ConcurrentHashMap<WorldBlockPos, BreedingState>()
 
     override fun onInitialize() {
         println("$PREFIX Initializing Cobblemon Breeding Mod")
+        BreedingConfig.load()
+        PastureScheduler.configure(BreedingConfig.settings.breedingTickBuckets)
+        BreedingTrace.configure(BreedingConfig.settings)
+        if (FabricLoader.getInstance().isModLoaded("everlastingutils")) {
+            BreedingCommands.registerCommands()
+        }
+        BreedingDebugCommands.register()
 
         ServerTickEvents.END_SERVER_TICK.register { server ->
-            val iterator = pastureBreedingStates.iterator()
-            while (iterator.hasNext()) {
-                val entry = iterator.next()
-                val worldPosKey = entry.key
-                val state = entry.value
-                val worldKey = state.worldKey
-                val world = worldKey?.let { server.getWorld(it) }
-
-                if (world == null) {
-                    continue
-                }
-
-                val pos = worldPosKey.pos
-                val blockEntity = world.getBlockEntity(pos)
-
-                if (blockEntity !is PokemonPastureBlockEntity) {
-                    iterator.remove()
-                    continue
-                }
-                BreedingManager.tickBreedingProcess(world, pos, state)
-            }
+            PastureScheduler.tick(server)
 
             if (server.ticks % 20 == 0) {
                 HatchManager.tickHatchingSteps(server)
-                HatchManager.processHatchQueue(server)
+            }
+            HatchManager.processHatchQueue(server)
+            LeashSweeper.tick(server)
+            PastureSyncBatcher.flush(server)
+            if (server.ticks % BreedingConfig.settings.eggStepFlushIntervalTicks == 0) {
+                HatchManager.flushEggSteps()
             }
         }
 
@@ -83,6 +150,7 @@ object CobblemonBreeding : ModInitializer {
         }
 
         ServerChunkEvents.CHUNK_UNLOAD.register { world, chunk ->
+            BlockChangeDispatcher.onChunkUnload(world, chunk.pos)
             chunk.blockEntities.keys.forEach { pos ->
                 val worldKeyObject = world.registryKey
                 val worldPos = WorldBlockPos(worldKeyObject, pos)
@@ -92,6 +160,62 @@ object CobblemonBreeding : ModInitializer {
             }
         }
 
+        ServerEntityEvents.ENTITY_LOAD.register { entity, _ ->
+            if (entity is PokemonEntity && entity.tethering != null) {
+                PastureEntityIndex.track(entity)
+            }
+        }
+
+        ServerEntityEvents.ENTITY_UNLOAD.register { entity, _ ->
+            if (entity is PokemonEntity) {
+                PastureEntityIndex.untrack(entity)
+            }
+        }
+
+        ServerPlayConnectionEvents.JOIN.register { handler, _, _ ->
+            EggCarrierRegistry.onJoin(handler.player)
+        }
+
+        ServerPlayConnectionEvents.DISCONNECT.register { handler, _ ->
+            HatchManager.onPlayerDisconnect(handler.player.uuid)
+            EggCarrierRegistry.onDisconnect(handler.player.uuid)
+            PastureSyncBatcher.onPlayerDisconnect(handler.player.uuid)
+            BreedingEffects.onPlayerDisconnect(handler.player.uuid)
+        }
+
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register { _, _, _ ->
+            HatchManager.clearSpeciesCache()
+            EggFactory.clearCaches()
+        }
+
+        ServerLifecycleEvents.SERVER_STOPPING.register { server ->
+            HatchManager.flushEggSteps()
+            PastureSyncBatcher.flush(server)
+            pastureBreedingStates.forEach { (worldPos, state) ->
+                if (state.breedingStartTick == null) return@forEach
+                val world = state.worldKey?.let { server.getWorld(it) } ?: return@forEach
+                if (world.isChunkLoaded(worldPos.pos.x shr 4, worldPos.pos.z shr 4)) {
+                    world.getBlockEntity(worldPos.pos)?.markDirty()
+                }
+            }
+        }
+
+        ServerLifecycleEvents.SERVER_STOPPED.register { _ ->
+            PastureScheduler.reset()
+            PastureEntityIndex.clear()
+            HabitatTracker.clear()
+            BlockChangeDispatcher.clear()
+            EggCodec.clearCache()
+            EggCarrierRegistry.clear()
+            PastureSyncBatcher.clear()
+            LeashSweeper.clear()
+            PastureSurfaceCache.clear()
+            BreedingEffects.clear()
+            HatchManager.clearSpeciesCache()
+            BreedingManager.clearPairings()
+            pastureBreedingStates.clear()
+        }
+
         Runtime.getRuntime().addShutdownHook(Thread {
             println("$PREFIX Shutting down breeding calculation executor.")
             BreedingManager.breedingCalculationExecutor.shutdown()
@@ -113,6 +237,11 @@ object CobblemonBreeding : ModInitializer {
         return pastureBreedingStates[worldPosKey]
     }
 
+    /** Thread-safe read of a pasture's breeding progress. */
+    fun getBreedingSnapshot(worldPosKey: WorldBlockPos): BreedingSnapshot? {
+        return pastureBreedingStates[worldPosKey]?.snapshot
+    }
+
     fun registerAndCheckPastureOnLoad(pastureBlockEntity: PokemonPastureBlockEntity, world: ServerWorld) {
         val pos = pastureBlockEntity.pos
         val worldKey = world.registryKey
@@ -122,11 +251,49 @@ object CobblemonBreeding : ModInitializer {
             BreedingState()
         }
         state.worldKey = worldKey
+        val recordHolder = pastureBlockEntity as? BreedingRecordHolder
+        recordHolder?.pendingBreedingRecord?.let { record ->
+            recordHolder.pendingBreedingRecord = null
+            if (state.breedingStartTick == null) {
+                record.restore(state, world.time, BreedingConfig.settings.offlineCatchUp)
+            }
+        }
+        LeashSweeper.track(worldKey, worldPos)
         BreedingManager.checkForInitialBreeders(world, pastureBlockEntity, state)
+        if (state.breedingStartTick != null || pastureBlockEntity.tetheredPokemon.size >= 2) {
+            PastureScheduler.wake(worldPos)
+        }
     }
 
+    /**
+     * Drops a pasture's runtime state. The chunk has already been saved by the time it unloads, so an in-progress
+     * breeding was written from the live state then and is resumed from that record on the next load.
+     */
     fun unregisterPastureOnUnload(worldPos: WorldBlockPos) {
         pastureBreedingStates.remove(worldPos)
+        PastureScheduler.forget(worldPos)
+        HabitatTracker.invalidate(worldPos)
+        BreedingManager.invalidatePairing(worldPos)
+        LeashSweeper.forget(worldPos)
+        PastureSurfaceCache.invalidate(worldPos)
+    }
+
+    /**
+     * Called from the pasture block entity mixin whenever a Pokémon is tethered to or released from a pasture.
+     * Idle pastures are not ticked, so this is what puts them back into the scheduler.
+     */
+    fun onPastureTethersChanged(world: ServerWorld, pos: BlockPos) {
+        val worldPos = WorldBlockPos(world.registryKey, pos)
+        val state = pastureBreedingStates.computeIfAbsent(worldPos) {
+            BreedingState()
+        }
+        state.worldKey = world.registryKey
+        BreedingManager.invalidatePairing(worldPos)
+        (world.getBlockEntity(pos) as? PokemonPastureBlockEntity)?.let {
+            BreedingManager.onTethersChanged(world, it, state)
+        }
+        LeashSweeper.track(world.registryKey, worldPos)
+        PastureScheduler.wake(worldPos)
     }
 
     fun registerNewPasture(world: ServerWorld, pos: BlockPos) {
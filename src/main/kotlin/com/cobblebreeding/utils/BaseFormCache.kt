@@ -0,0 +1,44 @@
+package com.cobblebreeding.utils
+
+/**
+ * Target species ID -> ready-made template for hatching its base form, filled lazily on first use.
+ *
+ * Resolving a template means a species lookup, a walk down the pre-evolution chain and a template build
+ * (for hatching, a `PokemonProperties.parse`); all three are passed in, so this class holds no Cobblemon types
+ * and can be benchmarked headless. Cached templates are shared and must not be mutated by callers.
+ * Call [clear] whenever species data reloads. Server thread only.
+ */
+class BaseFormCache<S : Any, T : Any>(
+    private val lookup: (String) -> S?,
+    private val preEvolution: (S) -> S?,
+    private val buildTemplate: (S) -> T?
+) {
+
+    private val templates = HashMap<String, T>()
+
+    val size: Int
+        get() = templates.size
+
+    /** @return the base-form template for [speciesId], or null if the species or its template can't be resolved. */
+    fun get(speciesId: String): T? {
+        templates[speciesId]?.let { return it }
+
+        var species = lookup(speciesId) ?: return null
+        var depth = 0
+        while (depth++ < MAX_CHAIN_LENGTH) {
+            species = preEvolution(species) ?: break
+        }
+        val template = buildTemplate(species) ?: return null
+        templates[speciesId] = template
+        return template
+    }
+
+    fun clear() {
+        templates.clear()
+    }
+
+    companion object {
+        /** Guards against cyclic pre-evolution data from datapacks. */
+        private const val MAX_CHAIN_LENGTH = 16
+    }
+}
@@ -0,0 +1,79 @@
+package com.cobblebreeding.utils
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap
+import net.minecraft.block.BlockState
+import net.minecraft.registry.RegistryKey
+import net.minecraft.server.world.ServerWorld
+import net.minecraft.util.math.BlockPos
+import net.minecraft.util.math.ChunkPos
+import net.minecraft.world.World
+
+interface BlockChangeListener {
+    /** A block inside one of the listener's chunks changed. Listeners do their own bounds check. */
+    fun onBlockChanged(world: ServerWorld, pos: BlockPos, oldState: BlockState, newState: BlockState)
+
+    /** One of the listener's chunks unloaded, so it will miss changes from now on. */
+    fun onChunkUnloaded(world: ServerWorld, chunkPos: ChunkPos)
+}
+
+/**
+ * Routes server-thread block changes (from `ServerWorldMixin`) to listeners watching an area,
+ * indexed by chunk so a change outside every watched area costs a single hash lookup.
+ */
+object BlockChangeDispatcher {
+
+    class Registration internal constructor(
+        val worldKey: RegistryKey<World>,
+        internal val chunkKeys: LongArray,
+        val listener: BlockChangeListener
+    ) {
+        fun remove() = BlockChangeDispatcher.remove(this)
+    }
+
+    private val registrationsByWorld = HashMap<RegistryKey<World>, Long2ObjectOpenHashMap<ArrayList<Registration>>>()
+
+    /** Watches the block columns from ([minX], [minZ]) to ([maxX], [maxZ]) inclusive. */
+    fun register(worldKey: RegistryKey<World>, minX: Int, minZ: Int, maxX: Int, maxZ: Int, listener: BlockChangeListener): Registration {
+        val chunkKeys = ArrayList<Long>()
+        for (chunkX in (minX shr 4)..(maxX shr 4)) {
+            for (chunkZ in (minZ shr 4)..(maxZ shr 4)) {
+                chunkKeys.add(ChunkPos.toLong(chunkX, chunkZ))
+            }
+        }
+        val registration = Registration(worldKey, chunkKeys.toLongArray(), listener)
+        val byChunk = registrationsByWorld.getOrPut(worldKey) { Long2ObjectOpenHashMap() }
+        registration.chunkKeys.forEach { key -> byChunk.computeIfAbsent(key) { ArrayList(2) }.add(registration) }
+        return registration
+    }
+
+    private fun remove(registration: Registration) {
+        val byChunk = registrationsByWorld[registration.worldKey] ?: return
+        registration.chunkKeys.forEach { key ->
+            val list = byChunk.get(key) ?: return@forEach
+            list.remove(registration)
+            if (list.isEmpty()) byChunk.remove(key)
+        }
+        if (byChunk.isEmpty()) registrationsByWorld.remove(registration.worldKey)
+    }
+
+    fun onBlockChanged(world: ServerWorld, pos: BlockPos, oldState: BlockState, newState: BlockState) {
+        if (registrationsByWorld.isEmpty() || !world.server.isOnThread) return
+        val byChunk = registrationsByWorld[world.registryKey] ?: return
+        val registrations = byChunk.get(ChunkPos.toLong(pos.x shr 4, pos.z shr 4)) ?: return
+        var i = registrations.size - 1
+        while (i >= 0) {
+            if (i < registrations.size) registrations[i].listener.onBlockChanged(world, pos, oldState, newState)
+            i--
+        }
+    }
+
+    fun onChunkUnload(world: ServerWorld, chunkPos: ChunkPos) {
+        val byChunk = registrationsByWorld[world.registryKey] ?: return
+        val registrations = byChunk.get(chunkPos.toLong()) ?: return
+        registrations.toList().forEach { it.listener.onChunkUnloaded(world, chunkPos) }
+    }
+
+    fun clear() {
+        registrationsByWorld.clear()
+    }
+}
@@ -0,0 +1,85 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.CobblemonBreeding
+import com.google.gson.GsonBuilder
+import com.google.gson.JsonParseException
+import net.fabricmc.loader.api.FabricLoader
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.Path
+
+/**
+ * Server-side settings, read from `config/cobblebreeding.json`.
+ * Missing keys fall back to the defaults below and the file is rewritten so new options show up for admins.
+ */
+object BreedingConfig {
+
+    data class Settings(
+        /** Number of phase buckets pastures are spread over; each pasture is ticked once every this many ticks. */
+        var breedingTickBuckets: Int = BreedingManager.TICK_THROTTLE.toInt(),
+        /** Credit breeding progress for the time a pasture's chunk was unloaded, laying any eggs that came due. */
+        var offlineCatchUp: Boolean = true,
+        /** How often, in ticks, hatch step progress held in memory is written back to egg NBT. */
+        var eggStepFlushIntervalTicks: Int = 600,
+        /** Server-wide number of eggs hatched per tick, shared round-robin between players. */
+        var hatchesPerTick: Int = 4,
+        /** Master switch for breeding and hatching particles. */
+        var particlesEnabled: Boolean = true,
+        /** Players further than this many blocks from an effect are not sent its particles. */
+        var particleViewDistance: Int = 32,
+        /** Most particle packets a single player is sent per second; further effects are skipped for them. */
+        var particlePacketsPerSecond: Int = 20,
+        /** Diagnostic trace categories to record (pasture, tether, habitat, sync); see `/cobblemonbreeding trace`. */
+        var traceCategories: List<String> = emptyList(),
+        /** Record one traced event in every this many, per category. */
+        var traceSampleEvery: Int = 1,
+        /** Number of most recent trace events kept in memory. */
+        var traceBufferSize: Int = 256
+    )
+
+    private val gson = GsonBuilder().setPrettyPrinting().create()
+    private val configPath: Path = FabricLoader.getInstance().configDir.resolve("cobblebreeding.json")
+
+    var settings = Settings()
+        private set
+
+    fun load() {
+        val loaded = try {
+            if (Files.exists(configPath)) {
+                Files.newBufferedReader(configPath).use { gson.fromJson(it, Settings::class.java) }
+            } else {
+                null
+            }
+        } catch (e: IOException) {
+            println("${CobblemonBreeding.PREFIX}Could not read $configPath, using defaults: ${e.message}")
+            null
+        } catch (e: JsonParseException) {
+            println("${CobblemonBreeding.PREFIX}Invalid config $configPath, using defaults: ${e.message}")
+            null
+        }
+
+        settings = (loaded ?: Settings()).also { sanitize(it) }
+        save()
+    }
+
+    private fun sanitize(settings: Settings) {
+        settings.breedingTickBuckets = settings.breedingTickBuckets.coerceIn(1, 100)
+        settings.eggStepFlushIntervalTicks = settings.eggStepFlushIntervalTicks.coerceIn(20, 72000)
+        settings.hatchesPerTick = settings.hatchesPerTick.coerceIn(1, 100)
+        settings.particleViewDistance = settings.particleViewDistance.coerceIn(8, 128)
+        settings.particlePacketsPerSecond = settings.particlePacketsPerSecond.coerceIn(1, 200)
+        @Suppress("SENSELESS_COMPARISON")
+        if (settings.traceCategories == null) settings.traceCategories = emptyList()
+        settings.traceSampleEvery = settings.traceSampleEvery.coerceIn(1, 10000)
+        settings.traceBufferSize = settings.traceBufferSize.coerceIn(16, 65536)
+    }
+
+    private fun save() {
+        try {
+            Files.createDirectories(configPath.parent)
+            Files.newBufferedWriter(configPath).use { gson.toJson(settings, it) }
+        } catch (e: IOException) {
+            println("${CobblemonBreeding.PREFIX}Could not write $configPath: ${e.message}")
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.CobblemonBreeding
+import com.cobblebreeding.CobblemonBreeding.MOD_ID
+import com.cobblemon.mod.common.Cobblemon
+import com.mojang.brigadier.CommandDispatcher
+import com.mojang.brigadier.context.CommandContext
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback
+import net.minecraft.server.command.CommandManager
+import net.minecraft.server.command.ServerCommandSource
+import net.minecraft.text.Text
+import net.minecraft.util.Formatting
+
+/**
+ * Admin diagnostics under `/cobblemonbreeding`. Registered as plain Brigadier commands so they are available
+ * whether or not EverlastingUtils is installed; Brigadier merges them into the same root as [BreedingCommands].
+ */
+object BreedingDebugCommands {
+
+    private const val PERMISSION_LEVEL = 2
+    private const val TRACE_CHAT_LINES = 20
+
+    fun register() {
+        CommandRegistrationCallback.EVENT.register { dispatcher, _, _ -> addCommands(dispatcher) }
+    }
+
+    private fun addCommands(dispatcher: CommandDispatcher<ServerCommandSource>) {
+        dispatcher.register(
+            CommandManager.literal(MOD_ID)
+                // Subcommand: /cobblemonbreeding trace [clear]
+                .then(
+                    CommandManager.literal("trace")
+                        .requires { it.hasPermissionLevel(PERMISSION_LEVEL) }
+                        .executes { executeTraceDump(it) }
+                        .then(CommandManager.literal("clear").executes { executeTraceClear(it) })
+                )
+                // Subcommand: /cobblemonbreeding sync
+                .then(
+                    CommandManager.literal("sync")
+                        .requires { it.hasPermissionLevel(PERMISSION_LEVEL) }
+                        .executes { executeSyncCounters(it) }
+                )
+        )
+    }
+
+    // Shows the newest trace events in chat and writes the whole buffer to the server log
+    private fun executeTraceDump(context: CommandContext<ServerCommandSource>): Int {
+        val source = context.source
+        val events = BreedingTrace.snapshot()
+        val categories = BreedingTrace.enabledCategories().joinToString(", ").ifEmpty { "none" }
+        source.sendFeedback({
+            Text.literal("Trace: ${events.size} buffered, ${BreedingTrace.recordedCount()} recorded, categories: $categories").formatted(Formatting.GOLD)
+        }, false)
+        events.takeLast(TRACE_CHAT_LINES).forEach { event ->
+            source.sendFeedback({ Text.literal(event.toString()).formatted(Formatting.GRAY) }, false)
+        }
+        events.forEach { Cobblemon.LOGGER.info("${CobblemonBreeding.PREFIX}trace {}", it) }
+        return events.size
+    }
+
+    private fun executeSyncCounters(context: CommandContext<ServerCommandSource>): Int {
+        val counters = PastureSyncBatcher.describeCounters()
+        context.source.sendFeedback({ Text.literal("Sync: $counters").formatted(Formatting.GOLD) }, false)
+        Cobblemon.LOGGER.info("${CobblemonBreeding.PREFIX}sync {}", counters)
+        return 1
+    }
+
+    private fun executeTraceClear(context: CommandContext<ServerCommandSource>): Int {
+        BreedingTrace.clear()
+        context.source.sendFeedback({ Text.literal("Trace buffer cleared.").formatted(Formatting.GREEN) }, true)
+        return 1
+    }
+}
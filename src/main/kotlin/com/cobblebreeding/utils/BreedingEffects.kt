@@ -0,0 +1,78 @@
+package com.cobblebreeding.utils
+
+import net.minecraft.particle.ParticleEffect
+import net.minecraft.server.world.ServerWorld
+import java.util.UUID
+
+/**
+ * Sends breeding particles only to the players that can see them.
+ *
+ * Each effect goes to players within the configured view distance, with the particle count reduced the further
+ * away they are. Every player has a budget of particle packets per second; effects past the budget are dropped
+ * for that player only. Turning `particlesEnabled` off in the config disables all of it. Server thread only.
+ */
+object BreedingEffects {
+
+    private class Budget(var second: Int, var used: Int)
+
+    private val budgets = HashMap<UUID, Budget>()
+
+    fun spawn(
+        world: ServerWorld,
+        effect: ParticleEffect,
+        x: Double,
+        y: Double,
+        z: Double,
+        count: Int,
+        deltaX: Double,
+        deltaY: Double,
+        deltaZ: Double,
+        speed: Double
+    ) {
+        val settings = BreedingConfig.settings
+        if (!settings.particlesEnabled) return
+        val players = world.players
+        if (players.isEmpty()) return
+
+        val viewDistance = settings.particleViewDistance.toDouble()
+        val viewDistanceSq = viewDistance * viewDistance
+        val second = world.server.ticks / 20
+        for (i in players.indices) {
+            val player = players[i]
+            val distanceSq = player.squaredDistanceTo(x, y, z)
+            if (distanceSq > viewDistanceSq) continue
+            if (!tryConsume(player.uuid, second, settings.particlePacketsPerSecond)) continue
+            // Forced: without it vanilla drops the packet past 32 blocks, below the configurable view distance.
+            world.spawnParticles(player, effect, true, x, y, z, levelOfDetail(count, distanceSq, viewDistanceSq), deltaX, deltaY, deltaZ, speed)
+        }
+    }
+
+    /** Full count in the nearest third of the view distance, half in the middle third, a quarter beyond. */
+    private fun levelOfDetail(count: Int, distanceSq: Double, viewDistanceSq: Double): Int {
+        val divisor = when {
+            distanceSq * 9.0 <= viewDistanceSq -> 1
+            distanceSq * 9.0 <= viewDistanceSq * 4.0 -> 2
+            else -> 4
+        }
+        return (count / divisor).coerceAtLeast(1)
+    }
+
+    private fun tryConsume(playerId: UUID, second: Int, limit: Int): Boolean {
+        val budget = budgets.getOrPut(playerId) { Budget(second, 0) }
+        if (budget.second != second) {
+            budget.second = second
+            budget.used = 0
+        }
+        if (budget.used >= limit) return false
+        budget.used++
+        return true
+    }
+
+    fun onPlayerDisconnect(playerId: UUID) {
+        budgets.remove(playerId)
+    }
+
+    fun clear() {
+        budgets.clear()
+    }
+}
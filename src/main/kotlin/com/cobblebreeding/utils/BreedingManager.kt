@@ -6,7 +6,6 @@ import com.cobblebreeding.WorldBlockPos
 import com.cobblebreeding.mixin.MobEntityAccessor
 import com.cobblemon.mod.common.Cobblemon
 import com.cobblemon.mod.common.api.pokemon.Natures
-import com.cobblemon.mod.common.api.pokemon.PokemonProperties
 import com.cobblemon.mod.common.api.pokemon.stats.Stat
 import com.cobblemon.mod.common.api.pokemon.stats.Stats
 import com.cobblemon.mod.common.block.entity.PokemonPastureBlockEntity
@@ -31,7 +30,6 @@ import net.minecraft.sound.SoundCategory
 import net.minecraft.sound.SoundEvents
 import net.minecraft.text.Text
 import net.minecraft.util.Formatting
-import net.minecraft.util.Identifier
 import net.minecraft.util.math.BlockPos
 import net.minecraft.util.math.Box
 import net.minecraft.util.math.Vec3d
@@ -104,21 +102,8 @@ object BreedingManager {
         "fairy" to listOf(Blocks.PINK_TULIP, Blocks.ALLIUM, Blocks.AZALEA, Blocks.FLOWERING_AZALEA, Blocks.PINK_PETALS, Blocks.SPORE_BLOSSOM, Blocks.AMETHYST_CLUSTER, Blocks.LARGE_AMETHYST_BUD, Blocks.PINK_CANDLE, Blocks.MAGENTA_CANDLE, Blocks.PURPLE_CANDLE, Blocks.WHITE_CANDLE, Blocks.END_ROD, Blocks.TWISTING_VINES)
     )
 
-    private val EGG_SPECIES_ID: Identifier = Identifier.of("cobblemon", "egg")
-    const val EGG_NBT_KEY = "is_egg"
-    const val TARGET_SPECIES_NBT_KEY = "target_species"
-    const val TOTAL_HATCH_STEPS_KEY = "totalHatchSteps"
-    const val CURRENT_HATCH_STEPS_KEY = "currentHatchSteps"
     const val STEPS_PER_EGG_CYCLE = 25
 
-    const val CALCULATED_IV_HP_KEY = "calculatedIVHP"
-    const val CALCULATED_IV_ATK_KEY = "calculatedIVAtk"
-    const val CALCULATED_IV_DEF_KEY = "calculatedIVDef"
-    const val CALCULATED_IV_SPA_KEY = "calculatedIVSpA"
-    const val CALCULATED_IV_SPD_KEY = "calculatedIVSpD"
-    const val CALCULATED_IV_SPE_KEY = "calculatedIVSpe"
-    const val CALCULATED_NATURE_KEY = "calculatedNature"
-
     private const val DESTINY_KNOT_ID = "cobblemon:destiny_knot"
     private const val EVERSTONE_ID = "cobblemon:everstone"
     private val powerItemStatMap: Map<String, Stat> = mapOf(
@@ -129,49 +114,37 @@ object BreedingManager {
         "cobblemon:power_band" to Stats.SPECIAL_DEFENCE,
         "cobblemon:power_anklet" to Stats.SPEED
     )
-    private val allStats = listOf(Stats.HP, Stats.ATTACK, Stats.DEFENCE, Stats.SPECIAL_ATTACK, Stats.SPECIAL_DEFENCE, Stats.SPEED)
 
     private val TIER_1_COLOR = Vector3f(1.0f, 1.0f, 1.0f)
     private val TIER_2_COLOR = Vector3f(1.0f, 1.0f, 0.0f)
     private val TIER_3_COLOR = Vector3f(0.0f, 1.0f, 0.0f)
     private const val PARTICLE_SCALE = 0.7f
+    private const val PARTICLE_INTERVAL_TICKS = 40L
 
-    private fun calculateBreedingDurationInternal(world: ServerWorld, pasturePos: BlockPos, typeNames: List<String> ): Pair<Long, Int> {
-        val favorableBaseBlocks = typeNames.flatMap { typeToBlocks[it] ?: emptyList() }.toSet()
-        val favorableDecorBlocks = typeNames.flatMap { typeToDecorations[it] ?: emptyList() }.toSet()
-
-        val minX = pasturePos.x - RADIUS
-        val maxX = pasturePos.x + RADIUS
-        val minZ = pasturePos.z - RADIUS
-        val maxZ = pasturePos.z + RADIUS
-        val baseY = pasturePos.y - 1
-        val decorY = pasturePos.y
-
-        var baseFavorableCount = 0
-        var decorFavorableCount = 0
-        val mutablePos = BlockPos.Mutable()
-
-        for (x in minX..maxX) {
-            for (z in minZ..maxZ) {
-                mutablePos.set(x, baseY, z)
-                val baseBlock = world.getBlockState(mutablePos).block
-                if (baseBlock in favorableBaseBlocks) {
-                    baseFavorableCount++
-                }
+    /** How long a pasture with no possible pair stays parked before its tethers are checked again. */
+    private const val NO_PAIR_RECHECK_TICKS = 1200L
 
-                mutablePos.y = decorY
-                val decorBlock = world.getBlockState(mutablePos).block
-                if (mutablePos.x == pasturePos.x && mutablePos.z == pasturePos.z) {
-                    if (decorBlock in favorableDecorBlocks) decorFavorableCount++
-                } else {
-                    if (decorBlock in favorableDecorBlocks) {
-                        decorFavorableCount++
-                    }
-                }
-            }
-        }
+    /**
+     * Pokémon IDs of a pasture's pair, both null if it has none. Stored with the tether count and tether hash it
+     * was computed from.
+     */
+    private class Pairing(val tetherCount: Int, val tetherHash: Long, val firstId: UUID?, val secondId: UUID?, val isDittoPair: Boolean)
+
+    private val pairings = HashMap<WorldBlockPos, Pairing>()
+
+    private val pairMatcher = PairMatcher()
 
-        val totalFavorableCount = baseFavorableCount + decorFavorableCount
+    private val HABITAT_LAYER_OFFSETS = intArrayOf(-1, 0)
+    private const val HABITAT_BASE_LAYER = 0
+    private const val HABITAT_DECOR_LAYER = 1
+
+    internal val habitatMasks: HabitatMaskTable = HabitatMaskTable.build(
+        Registries.BLOCK.size(),
+        typeToBlocks.mapValues { (_, blocks) -> blocks.map { Registries.BLOCK.getRawId(it) }.toIntArray() },
+        typeToDecorations.mapValues { (_, blocks) -> blocks.map { Registries.BLOCK.getRawId(it) }.toIntArray() }
+    )
+
+    private fun habitatTier(favorableCount: Int): Int {
         val areaSize = (2 * RADIUS + 1) * (2 * RADIUS + 1)
         val totalBlocksChecked = areaSize * 2
 
@@ -179,116 +152,90 @@ object BreedingManager {
         val tier2Threshold = (totalBlocksChecked * 0.50).toInt()
 
         val tier = when {
-            totalFavorableCount >= tier3Threshold -> 3
-            totalFavorableCount >= tier2Threshold -> 2
+            favorableCount >= tier3Threshold -> 3
+            favorableCount >= tier2Threshold -> 2
             else -> 1
         }
-        println("Breeding Tier: $tier ($totalFavorableCount / $totalBlocksChecked favorable blocks)")
+        if (BreedingTrace.isEnabled(TraceCategory.HABITAT)) {
+            BreedingTrace.record(TraceCategory.HABITAT, "tier", "tier=$tier favorable=$favorableCount/$totalBlocksChecked")
+        }
+        return tier
+    }
 
+    private fun durationForTier(tier: Int): Long {
         val multiplier = when (tier) {
             3 -> 1.0 - TIER_3_REDUCTION
             2 -> 1.0 - TIER_2_REDUCTION
             else -> 1.0
         }
-        val duration = (BASE_BREEDING_DURATION_TICKS * multiplier).roundToLong().coerceAtLeast(1L)
-        return Pair(duration, tier)
+        return (BASE_BREEDING_DURATION_TICKS * multiplier).roundToLong().coerceAtLeast(1L)
     }
 
-    private fun isDitto(pokemon: Pokemon?): Boolean {
-        return pokemon?.species?.showdownId() == "ditto"
+    /** Reads the state's tier from the live habitat counter. @return true if the tier changed. */
+    private fun applyHabitatTier(world: ServerWorld, state: BreedingState, counter: HabitatCounter): Boolean {
+        val tier = habitatTier(counter.favorableCount(state.habitatTypeMask))
+        val changed = tier != state.breedingTier
+        state.breedingTier = tier
+        state.breedingDurationTicks = durationForTier(tier)
+        state.publish()
+        if (changed) markPastureDirty(world, counter.worldPos.pos)
+        return changed
     }
 
-    private fun isGenderless(pokemon: Pokemon?): Boolean {
-        return pokemon?.gender == Gender.GENDERLESS
+    /** Breeding progress is saved with the pasture block entity, so every transition has to flag its chunk for saving. */
+    private fun markPastureDirty(world: ServerWorld, pasturePos: BlockPos) {
+        world.getBlockEntity(pasturePos)?.let { PastureSyncBatcher.markDirty(it) }
     }
 
-    fun tickBreedingProcess(world: ServerWorld, pasturePos: BlockPos, state: BreedingState) {
-        if (world.time % TICK_THROTTLE != 0L) return
-
-        val pastureBlockEntity = world.getBlockEntity(pasturePos) as? PokemonPastureBlockEntity ?: return
-
-        if (state.breedingStartTick == null) {
-            val tetheredPokemonPairs = pastureBlockEntity.tetheredPokemon.mapNotNull { tether ->
-                tether.getPokemon()?.let { pokemon -> Pair(tether, pokemon) }
-            }
-            if (tetheredPokemonPairs.size < 2) return
-
-            var foundPair = false
-            var potentialParent1Tether: PokemonPastureBlockEntity.Tethering? = null
-            var potentialParent2Tether: PokemonPastureBlockEntity.Tethering? = null
-            var isDittoPairResult = false
-
-            val dittos = tetheredPokemonPairs.filter { isDitto(it.second) }
-            val genderlessNonDittos = tetheredPokemonPairs.filter { isGenderless(it.second) && !isDitto(it.second) }
-            val genderedNonDittos = tetheredPokemonPairs.filterNot { isDitto(it.second) || isGenderless(it.second) }
-
-            if (dittos.size == 1) {
-                val dittoPair = dittos.first()
-                if (genderlessNonDittos.isNotEmpty()) {
-                    val partnerPair = genderlessNonDittos.first()
-                    potentialParent1Tether = dittoPair.first
-                    potentialParent2Tether = partnerPair.first
-                    isDittoPairResult = true
-                    foundPair = true
-                } else if (genderedNonDittos.isNotEmpty()) {
-                    val partnerPair = genderedNonDittos.first()
-                    if (partnerPair.second.gender != Gender.GENDERLESS) {
-                        potentialParent1Tether = dittoPair.first
-                        potentialParent2Tether = partnerPair.first
-                        isDittoPairResult = true
-                        foundPair = true
-                    }
-                }
-            }
-
-            if (!foundPair) {
-                val speciesMap = genderedNonDittos.groupBy { it.second.species }
-                for ((_, tethersInSpecies) in speciesMap) {
-                    if (tethersInSpecies.size < 2) continue
+    /**
+     * Called when blocks in a pasture's habitat footprint change. A pair that is still counting down picks up the
+     * new tier immediately and is woken so the scheduler re-parks it against the new duration.
+     */
+    internal fun onHabitatChanged(world: ServerWorld, counter: HabitatCounter) {
+        val state = CobblemonBreeding.getBreedingState(counter.worldPos) ?: return
+        if (state.breedingStartTick == null || state.needsDurationCalc || state.isCalculatingDuration) return
+        if (state.walkingStarted || state.meetingEndTime != null) return
+        if (applyHabitatTier(world, state, counter)) {
+            PastureScheduler.wake(counter.worldPos)
+        }
+    }
 
-                    val males = tethersInSpecies.filter { it.second.gender == Gender.MALE }
-                    val females = tethersInSpecies.filter { it.second.gender == Gender.FEMALE }
+    private fun isDitto(pokemon: Pokemon?): Boolean {
+        return pokemon?.species?.showdownId() == "ditto"
+    }
 
-                    if (males.isNotEmpty() && females.isNotEmpty()) {
-                        potentialParent1Tether = males.first().first
-                        potentialParent2Tether = females.first().first
-                        isDittoPairResult = false
-                        foundPair = true
-                        break
-                    }
-                }
-            }
+    /**
+     * Advances the breeding state machine of one pasture.
+     *
+     * @return when the pasture next needs a visit: [PastureScheduler.TICK_AGAIN] to keep ticking,
+     * [PastureScheduler.SLEEP_UNTIL_WOKEN] once it has nothing left to do (not breeding and fewer than two
+     * tethered Pokémon), or the world tick at which a parked countdown should resume or a pasture without a
+     * possible pair should be re-checked.
+     * The scheduler's phase buckets decide how often this runs, so timings here compare elapsed ticks
+     * rather than relying on `world.time` landing on exact multiples.
+     */
+    fun tickBreedingProcess(world: ServerWorld, pasturePos: BlockPos, state: BreedingState): Long {
+        val pastureBlockEntity = world.getBlockEntity(pasturePos) as? PokemonPastureBlockEntity ?: return PastureScheduler.SLEEP_UNTIL_WOKEN
 
-            if (foundPair && potentialParent1Tether != null && potentialParent2Tether != null) {
-                val entity1Check = getPokemonEntityByPokemonUUID(world, pastureBlockEntity, potentialParent1Tether.pokemonId)
-                val entity2Check = getPokemonEntityByPokemonUUID(world, pastureBlockEntity, potentialParent2Tether.pokemonId)
-
-                if (entity1Check != null && entity2Check != null) {
-                    state.malePokemonUUID = potentialParent1Tether.pokemonId
-                    state.femalePokemonUUID = potentialParent2Tether.pokemonId
-                    state.isDittoPair = isDittoPairResult
-                    state.breedingStartTick = world.time
-                    state.needsDurationCalc = true
-                    state.isCalculatingDuration = false
-                    state.walkingStarted = false
-                    state.meetingPoint = null
-                    state.meetingEndTime = null
-                    state.jumpCount = 0
-                    state.lastJumpTick = 0L
-                    state.heartsPlayed = false
-                    state.breedingDurationTicks = BASE_BREEDING_DURATION_TICKS
-                    state.breedingTier = 1
-                }
-            }
-            return
+        if (state.breedingStartTick == null) {
+            if (pastureBlockEntity.tetheredPokemon.size < 2) return PastureScheduler.SLEEP_UNTIL_WOKEN
+            if (!tryStartBreeding(world, pastureBlockEntity, state)) return world.time + NO_PAIR_RECHECK_TICKS
+            return PastureScheduler.TICK_AGAIN
         }
 
         val maleEntity = getPokemonEntityByPokemonUUID(world, pastureBlockEntity, state.malePokemonUUID!!)
         val femaleEntity = getPokemonEntityByPokemonUUID(world, pastureBlockEntity, state.femalePokemonUUID!!)
 
+        // A released parent's entity lingers while it recalls, so the tether list is what decides.
+        if (!parentsTethered(pastureBlockEntity, state)) {
+            cancelBreeding(pastureBlockEntity, state, maleEntity, femaleEntity)
+            return PastureScheduler.TICK_AGAIN
+        }
+
         if (maleEntity == null || femaleEntity == null) {
-            cancelBreeding(state, maleEntity, femaleEntity)
-            return
+            if (world.time < state.parentsGraceUntilTick) return PastureScheduler.TICK_AGAIN
+            cancelBreeding(pastureBlockEntity, state, maleEntity, femaleEntity)
+            return PastureScheduler.TICK_AGAIN
         }
 
         if (state.needsDurationCalc && !state.isCalculatingDuration) {
@@ -297,38 +244,44 @@ object BreedingManager {
             } else {
                 femaleEntity.pokemon
             }
+            state.habitatTypeMask = HabitatMaskTable.typeMask(listOfNotNull(
+                calculationParentPokemon.species.primaryType.name.lowercase(Locale.ROOT),
+                calculationParentPokemon.species.secondaryType?.name?.lowercase(Locale.ROOT)
+            ))
+
+            val worldPosKey = WorldBlockPos(world.registryKey, pasturePos)
+            val existingCounter = HabitatTracker.counterFor(worldPosKey)
+            if (existingCounter != null && existingCounter.isReady) {
+                applyHabitatTier(world, state, existingCounter)
+                state.needsDurationCalc = false
+                PastureSyncBatcher.markDirty(pastureBlockEntity)
+                return PastureScheduler.TICK_AGAIN
+            }
 
             state.isCalculatingDuration = true
             val worldForAsync: ServerWorld = world
             val pasturePosForAsync: BlockPos = pasturePos
-            val typesForAsync: List<String> = listOfNotNull(
-                calculationParentPokemon.species.primaryType.name.lowercase(Locale.ROOT),
-                calculationParentPokemon.species.secondaryType?.name?.lowercase(Locale.ROOT)
-            )
-            val maleUUIDForCallback = state.malePokemonUUID
-            val femaleUUIDForCallback = state.femalePokemonUUID
-            val startTickForCallback = state.breedingStartTick
+            val snapshotForAsync = HabitatSnapshot.capture(world, pasturePos, RADIUS, HABITAT_LAYER_OFFSETS)
+            val counterForCallback = HabitatTracker.begin(world, worldPosKey, snapshotForAsync, HABITAT_BASE_LAYER, HABITAT_DECOR_LAYER)
+            val generationForCallback = state.generation
             val worldKeyForCallback = state.worldKey
 
             breedingCalculationExecutor.submit {
                 try {
-                    val (duration, tier) = calculateBreedingDurationInternal(worldForAsync, pasturePosForAsync, typesForAsync )
+                    val typeCounts = HabitatCounter.countTypes(habitatMasks, snapshotForAsync, HABITAT_BASE_LAYER, HABITAT_DECOR_LAYER)
                     worldForAsync.server.execute {
+                        val counterReady = HabitatTracker.complete(counterForCallback, typeCounts)
                         val currentWorldPosKey = worldKeyForCallback?.let { WorldBlockPos(it, pasturePosForAsync) }
                         val currentState = currentWorldPosKey?.let { CobblemonBreeding.getBreedingState(it) }
 
-                        if (currentState != null && currentState.isCalculatingDuration &&
-                            currentState.malePokemonUUID == maleUUIDForCallback &&
-                            currentState.femalePokemonUUID == femaleUUIDForCallback &&
-                            currentState.breedingStartTick == startTickForCallback) {
-                            currentState.breedingDurationTicks = duration
-                            currentState.breedingTier = tier
+                        if (counterReady && currentState != null && currentState.isCalculatingDuration &&
+                            currentState.generation == generationForCallback) {
+                            applyHabitatTier(worldForAsync, currentState, counterForCallback)
                             currentState.needsDurationCalc = false
                             currentState.isCalculatingDuration = false
-                        } else {
-                            if (currentState != null && currentState.malePokemonUUID == maleUUIDForCallback && currentState.femalePokemonUUID == femaleUUIDForCallback) {
-                                currentState.isCalculatingDuration = false
-                            }
+                            markPastureDirty(worldForAsync, pasturePosForAsync)
+                        } else if (currentState != null && currentState.generation == generationForCallback) {
+                            currentState.isCalculatingDuration = false
                         }
                     }
                 } catch (e: Exception) {
@@ -336,25 +289,30 @@ object BreedingManager {
                     worldForAsync.server.execute {
                         val currentWorldPosKey = worldKeyForCallback?.let { WorldBlockPos(it, pasturePosForAsync) }
                         val currentState = currentWorldPosKey?.let { CobblemonBreeding.getBreedingState(it) }
-                        if (currentState != null && currentState.malePokemonUUID == maleUUIDForCallback && currentState.femalePokemonUUID == femaleUUIDForCallback) {
+                        if (currentState != null && currentState.generation == generationForCallback) {
                             currentState.isCalculatingDuration = false
                         }
                     }
                 }
             }
-            return
+            return PastureScheduler.TICK_AGAIN
         }
 
         if (state.isCalculatingDuration) {
-            if (world.time % 40 == 0L) {
+            if (world.time - state.lastParticleTick >= PARTICLE_INTERVAL_TICKS) {
+                state.lastParticleTick = world.time
                 val particleColor = Vector3f(0.5f, 0.5f, 1.0f)
                 val dustOptions = DustParticleEffect(particleColor, PARTICLE_SCALE)
                 val particleX = pastureBlockEntity.pos.x + 0.5
                 val particleY = pastureBlockEntity.pos.y + 0.8
                 val particleZ = pastureBlockEntity.pos.z + 0.5
-                world.spawnParticles(dustOptions, particleX, particleY, particleZ, 5, 0.3, 0.3, 0.3, 0.01)
+                BreedingEffects.spawn(world, dustOptions, particleX, particleY, particleZ, 5, 0.3, 0.3, 0.3, 0.01)
             }
-            return
+            return PastureScheduler.TICK_AGAIN
+        }
+
+        if (state.offlineCatchUpPending) {
+            catchUpOfflineBreeding(world, pastureBlockEntity, state)
         }
 
         val currentTick = world.time
@@ -362,35 +320,27 @@ object BreedingManager {
 
 
         if (!state.walkingStarted && state.meetingEndTime == null && elapsedTicks < state.breedingDurationTicks) {
-            if (currentTick % 40 == 0L) {
-                val particleColor = when (state.breedingTier) {
-                    3 -> TIER_3_COLOR
-                    2 -> TIER_2_COLOR
-                    else -> TIER_1_COLOR
-                }
-                val dustOptions = DustParticleEffect(particleColor, PARTICLE_SCALE)
-                val particleX = pastureBlockEntity.pos.x + 0.5
-                val particleY = pastureBlockEntity.pos.y + 0.8
-                val particleZ = pastureBlockEntity.pos.z + 0.5
-                world.spawnParticles(dustOptions, particleX, particleY, particleZ, 12, 0.5, 0.5, 0.5, 0.03)
+            if (currentTick - state.lastParticleTick >= PARTICLE_INTERVAL_TICKS) {
+                spawnCountdownParticles(world, pastureBlockEntity.pos, state)
             }
+            return (state.breedingStartTick ?: currentTick) + state.breedingDurationTicks
         } else if (!state.walkingStarted && state.meetingEndTime == null) {
-            state.meetingPoint = calculateMeetingPoint(maleEntity, femaleEntity)
+            state.meetingPoint = calculateMeetingPoint(world, pasturePos, maleEntity, femaleEntity)
             state.meetingPoint?.let { mp ->
-                addWalkGoalIfNotPresent(maleEntity, mp)
-                addWalkGoalIfNotPresent(femaleEntity, mp)
+                startWalk(maleEntity, mp)
+                startWalk(femaleEntity, mp)
             }
             state.walkingStarted = true
         } else if (state.walkingStarted && state.meetingPoint != null && state.meetingEndTime == null) {
             if (!areEntitiesWalking(maleEntity, femaleEntity) || elapsedTicks >= state.breedingDurationTicks + WALK_TO_MEET_DURATION_TICKS) {
-                removeWalkGoal(maleEntity)
-                removeWalkGoal(femaleEntity)
+                stopWalk(maleEntity)
+                stopWalk(femaleEntity)
                 state.meetingEndTime = currentTick
                 state.jumpCount = 0
                 state.lastJumpTick = currentTick
                 state.heartsPlayed = false
             } else if (elapsedTicks > state.breedingDurationTicks + WALK_TIMEOUT_EXTRA_TICKS) {
-                cancelBreeding(state, maleEntity, femaleEntity)
+                cancelBreeding(pastureBlockEntity, state, maleEntity, femaleEntity)
             }
         } else if (state.meetingEndTime != null) {
             val ticksSinceMeeting = currentTick - state.meetingEndTime!!
@@ -414,7 +364,8 @@ object BreedingManager {
                 } else if (!state.heartsPlayed) {
 
                     if (maleEntity.squaredDistanceTo(femaleEntity) <= MAX_HEART_DISTANCE_SQ) {
-                        world.spawnParticles(
+                        BreedingEffects.spawn(
+                            world,
                             ParticleTypes.HEART,
                             maleEntity.x,
                             maleEntity.eyeY,
@@ -425,7 +376,8 @@ object BreedingManager {
                             0.5,
                             0.02
                         )
-                        world.spawnParticles(
+                        BreedingEffects.spawn(
+                            world,
                             ParticleTypes.HEART,
                             femaleEntity.x,
                             femaleEntity.eyeY,
@@ -438,11 +390,7 @@ object BreedingManager {
                         )
                         state.heartsPlayed = true
                     } else {
-                        cancelBreeding(
-                            state,
-                            maleEntity,
-                            femaleEntity
-                        )
+                        cancelBreeding(pastureBlockEntity, state, maleEntity, femaleEntity)
                     }
                 } else {
 
@@ -454,29 +402,91 @@ object BreedingManager {
                         val ownerUUID = parentTetherForOwner.playerId
                         val ownerPlayer =
                             world.server.playerManager.getPlayer(ownerUUID)
-                        if (ownerPlayer != null) {
-                            generateAndAddEggToPasture(world, pastureBlockEntity.pos, state, ownerPlayer)
-                        }
+                        generateAndAddEggToPasture(world, pastureBlockEntity.pos, state, ownerUUID, parentTetherForOwner.playerName, ownerPlayer)
                     }
-                    cancelBreeding(state, maleEntity, femaleEntity)
+                    cancelBreeding(pastureBlockEntity, state, maleEntity, femaleEntity)
                 }
             }
         }
+        return PastureScheduler.TICK_AGAIN
     }
 
-    private fun isEntityWalking(entity: PokemonEntity?): Boolean {
-        val mobEntity = entity as? MobEntity ?: return false
-        val goalSelector = (mobEntity as? MobEntityAccessor)?.goalSelector ?: return false
-        return goalSelector.goals.any { prioritizedGoal ->
-            prioritizedGoal.goal is WalkToPositionGoal && prioritizedGoal.isRunning
+    /**
+     * Lays the eggs a pair would have produced while its pasture was unloaded, skipping the walk/meet animation,
+     * until the pasture is full. Whatever progress is left over carries into the current countdown.
+     */
+    private fun catchUpOfflineBreeding(world: ServerWorld, pastureBlockEntity: PokemonPastureBlockEntity, state: BreedingState) {
+        state.offlineCatchUpPending = false
+        val startTick = state.breedingStartTick ?: return
+        val duration = state.breedingDurationTicks
+        var elapsed = world.time - startTick
+        if (elapsed < duration) return
+
+        val ownerTether = pastureBlockEntity.tetheredPokemon.find { it.pokemonId == state.femalePokemonUUID }
+            ?: pastureBlockEntity.tetheredPokemon.find { it.pokemonId == state.malePokemonUUID }
+            ?: return
+
+        var eggsLaid = 0
+        while (elapsed >= duration && pastureBlockEntity.tetheredPokemon.size < pastureBlockEntity.getMaxTethered()) {
+            if (!generateAndAddEggToPasture(world, pastureBlockEntity.pos, state, ownerTether.playerId, ownerTether.playerName, null)) break
+            eggsLaid++
+            elapsed -= duration
+        }
+        state.breedingStartTick = world.time - (elapsed % duration)
+        state.publish()
+        PastureSyncBatcher.markDirty(pastureBlockEntity)
+
+        if (eggsLaid > 0) {
+            world.server.playerManager.getPlayer(ownerTether.playerId)?.sendMessage(
+                Text.literal("$eggsLaid Pokémon Egg(s) were laid while your pasture was unloaded.").formatted(Formatting.GREEN), false
+            )
         }
     }
 
+    /** @return false once either parent of the running breeding is no longer tethered to the pasture. */
+    internal fun parentsTethered(pastureBlockEntity: PokemonPastureBlockEntity, state: BreedingState): Boolean {
+        val tethers = pastureBlockEntity.tetheredPokemon
+        return tethers.any { it.pokemonId == state.malePokemonUUID } && tethers.any { it.pokemonId == state.femalePokemonUUID }
+    }
+
+    /** Called after a tether or release on the pasture. A pair that lost a parent is cancelled on the spot. */
+    fun onTethersChanged(world: ServerWorld, pastureBlockEntity: PokemonPastureBlockEntity, state: BreedingState) {
+        if (state.breedingStartTick == null || parentsTethered(pastureBlockEntity, state)) return
+        cancelBreeding(
+            pastureBlockEntity,
+            state,
+            state.malePokemonUUID?.let { getPokemonEntityByPokemonUUID(world, pastureBlockEntity, it) },
+            state.femalePokemonUUID?.let { getPokemonEntityByPokemonUUID(world, pastureBlockEntity, it) }
+        )
+    }
+
+    /** Tier-coloured dust shown above a pasture while its pair is counting down. */
+    fun spawnCountdownParticles(world: ServerWorld, pasturePos: BlockPos, state: BreedingState) {
+        state.lastParticleTick = world.time
+        val particleColor = when (state.breedingTier) {
+            3 -> TIER_3_COLOR
+            2 -> TIER_2_COLOR
+            else -> TIER_1_COLOR
+        }
+        val dustOptions = DustParticleEffect(particleColor, PARTICLE_SCALE)
+        val particleX = pasturePos.x + 0.5
+        val particleY = pasturePos.y + 0.8
+        val particleZ = pasturePos.z + 0.5
+        BreedingEffects.spawn(world, dustOptions, particleX, particleY, particleZ, 12, 0.5, 0.5, 0.5, 0.03)
+    }
+
+    private fun isEntityWalking(entity: PokemonEntity?): Boolean {
+        return (entity as? WalkGoalHolder)?.breedingWalkGoal?.isWalking == true
+    }
+
     private fun areEntitiesWalking(entity1: PokemonEntity?, entity2: PokemonEntity?): Boolean {
         return isEntityWalking(entity1) || isEntityWalking(entity2)
     }
 
     private fun getPokemonEntityByPokemonUUID(world: ServerWorld, pastureBlockEntity: PokemonPastureBlockEntity, pokemonUuid: UUID): PokemonEntity? {
+        PastureEntityIndex.get(pokemonUuid)?.let { indexed ->
+            if (indexed.world === world) return indexed
+        }
 
         val minPos = pastureBlockEntity.minRoamPos
         val maxPos = pastureBlockEntity.maxRoamPos
@@ -484,80 +494,65 @@ object BreedingManager {
         val potentialEntities = world.getEntitiesByClass(PokemonEntity::class.java, searchBox) { entity ->
             entity.pokemon.uuid == pokemonUuid && !entity.isRemoved
         }
-        return potentialEntities.firstOrNull()
+        return potentialEntities.firstOrNull()?.also { PastureEntityIndex.track(it) }
     }
 
     private fun getItemId(itemStack: ItemStack?): String? {
         return if (itemStack == null || itemStack.isEmpty) null else Registries.ITEM.getId(itemStack.item).toString()
     }
 
-    private fun calculateOffspringIvs(malePokemon: Pokemon, femalePokemon: Pokemon): Map<Stat, Int> {
-        val finalIvs = mutableMapOf<Stat, Int>()
-        val availableStats = allStats.toMutableList()
-
+    private fun calculateOffspringIvs(malePokemon: Pokemon, femalePokemon: Pokemon): IntArray {
         val maleHeldItemId = getItemId(malePokemon.heldItem())
         val femaleHeldItemId = getItemId(femalePokemon.heldItem())
 
-        val hasDestinyKnot = maleHeldItemId == DESTINY_KNOT_ID || femaleHeldItemId == DESTINY_KNOT_ID
-        val ivsToInherit = if (hasDestinyKnot) 5 else 3
-        var inheritedCount = 0
-
-        val powerItemParentMap = mutableMapOf<Stat, Pokemon>()
-        maleHeldItemId?.let { id -> powerItemStatMap[id]?.let { powerItemParentMap[it] = malePokemon } }
-        femaleHeldItemId?.let { id -> powerItemStatMap[id]?.let { powerItemParentMap[it] = femalePokemon } }
-
-        powerItemParentMap.forEach { (stat, parent) ->
-            if (availableStats.contains(stat) && inheritedCount < ivsToInherit) {
-                finalIvs[stat] = parent.ivs[stat] ?: 0
-                availableStats.remove(stat)
-                inheritedCount++
-            }
-        }
-
-        val ivsToInheritRandomly = ivsToInherit - inheritedCount
-        if (ivsToInheritRandomly > 0 && availableStats.isNotEmpty()) {
-            availableStats.shuffle()
-            val statsToInheritRandomly = availableStats.take(ivsToInheritRandomly)
-            statsToInheritRandomly.forEach { stat ->
-                val parentToInheritFrom = if (kotlin.random.Random.nextBoolean()) malePokemon else femalePokemon
-                finalIvs[stat] = parentToInheritFrom.ivs[stat] ?: 0
-            }
-            availableStats.removeAll(statsToInheritRandomly.toSet())
-        }
+        return OffspringRules.inheritIvs(
+            ivsOf(malePokemon),
+            ivsOf(femalePokemon),
+            powerItemStat(maleHeldItemId),
+            powerItemStat(femaleHeldItemId),
+            maleHeldItemId == DESTINY_KNOT_ID || femaleHeldItemId == DESTINY_KNOT_ID,
+            kotlin.random.Random,
+            IntArray(OffspringRules.STAT_COUNT)
+        )
+    }
 
-        availableStats.forEach { stat ->
-            if (!finalIvs.containsKey(stat)) {
-                finalIvs[stat] = kotlin.random.Random.nextInt(32)
-            }
-        }
+    private fun ivsOf(pokemon: Pokemon): IntArray = IntArray(EggCodec.IV_STATS.size) { i -> pokemon.ivs[EggCodec.IV_STATS[i]] ?: 0 }
 
-        allStats.forEach { stat ->
-            finalIvs.putIfAbsent(stat, kotlin.random.Random.nextInt(32))
-        }
-        return finalIvs
+    private fun powerItemStat(itemId: String?): Int {
+        val stat = itemId?.let { powerItemStatMap[it] } ?: return OffspringRules.NO_STAT
+        return EggCodec.IV_STATS.indexOf(stat)
     }
 
     private fun calculateOffspringNature(malePokemon: Pokemon, femalePokemon: Pokemon): Nature {
-        val maleHeldItemId = getItemId(malePokemon.heldItem())
-        val femaleHeldItemId = getItemId(femalePokemon.heldItem())
-
-        val maleHasEverstone = maleHeldItemId == EVERSTONE_ID
-        val femaleHasEverstone = femaleHeldItemId == EVERSTONE_ID
-
-        return when {
-            maleHasEverstone && femaleHasEverstone -> if (kotlin.random.Random.nextBoolean()) malePokemon.nature else femalePokemon.nature
-            maleHasEverstone -> malePokemon.nature
-            femaleHasEverstone -> femalePokemon.nature
+        val source = OffspringRules.natureSource(
+            getItemId(malePokemon.heldItem()) == EVERSTONE_ID,
+            getItemId(femalePokemon.heldItem()) == EVERSTONE_ID,
+            kotlin.random.Random
+        )
+        return when (source) {
+            OffspringRules.NATURE_FROM_MALE -> malePokemon.nature
+            OffspringRules.NATURE_FROM_FEMALE -> femalePokemon.nature
             else -> Natures.getRandomNature()
         }
     }
 
-    private fun generateAndAddEggToPasture(world: ServerWorld, pasturePos: BlockPos, state: BreedingState, player: ServerPlayerEntity): Boolean {
+    /**
+     * Creates an egg for the state's pair and tethers it to the pasture, storing it in the owner's PC.
+     * [player] is the owner if they are online; it is only used for messages and the pasture UI update.
+     */
+    private fun generateAndAddEggToPasture(
+        world: ServerWorld,
+        pasturePos: BlockPos,
+        state: BreedingState,
+        ownerUUID: UUID,
+        ownerName: String,
+        player: ServerPlayerEntity?
+    ): Boolean {
         val pastureBlockEntity = world.getBlockEntity(pasturePos) as? PokemonPastureBlockEntity ?: return false
 
         val maxTotalPokemon = pastureBlockEntity.getMaxTethered()
         if (pastureBlockEntity.tetheredPokemon.size >= maxTotalPokemon) {
-            player.sendMessage(Text.literal("The pasture is full! Could not add the Pokémon Egg.").formatted(Formatting.YELLOW), false)
+            player?.sendMessage(Text.literal("The pasture is full! Could not add the Pokémon Egg.").formatted(Formatting.YELLOW), false)
             return false
         }
 
@@ -584,58 +579,17 @@ object BreedingManager {
 
         if (targetSpecies.showdownId() == "ditto") return false
 
-        val targetSpeciesIdString = targetSpecies.showdownId()
-
         val offspringIvs = calculateOffspringIvs(malePokemon, femalePokemon)
         val offspringNature = calculateOffspringNature(malePokemon, femalePokemon)
 
-        val eggCycles = targetSpecies.eggCycles
-        val totalStepsRequired = if (eggCycles > 1) eggCycles * STEPS_PER_EGG_CYCLE else 10 * STEPS_PER_EGG_CYCLE
-
-        val primaryType = targetSpecies.primaryType
-        val typeAspect = primaryType.name.lowercase(Locale.ROOT)
-
-        val parentSpeciesHeight = scaleReferencePokemon.species.height.toFloat()
-        val parentScaleModifier = scaleReferencePokemon.scaleModifier
-        val effectiveParentHeight = parentSpeciesHeight * parentScaleModifier
-        val normalizationDivisor = 15.0f
-        val calculatedScale = (effectiveParentHeight / normalizationDivisor) * 0.5f
-        val desiredEggScale = calculatedScale.coerceIn(0.1f, 1.2f)
-
-        val eggSpeciesIdentifierPath = EGG_SPECIES_ID.path
-        val propertiesString = "$eggSpeciesIdentifierPath level=1 aspect=$typeAspect"
-        val properties = PokemonProperties.parse(propertiesString)
-
-        val eggEntity =
-            properties.createEntity(world)
-        val eggPokemon = eggEntity.pokemon
-
-        eggPokemon.persistentData.putBoolean(EGG_NBT_KEY, true)
-        eggPokemon.persistentData.putString(TARGET_SPECIES_NBT_KEY, targetSpeciesIdString)
-        eggPokemon.persistentData.putInt(TOTAL_HATCH_STEPS_KEY, totalStepsRequired)
-        eggPokemon.persistentData.putInt(CURRENT_HATCH_STEPS_KEY, 0)
-
-        eggPokemon.persistentData.putInt(CALCULATED_IV_HP_KEY, offspringIvs[Stats.HP] ?: 0)
-        eggPokemon.persistentData.putInt(CALCULATED_IV_ATK_KEY, offspringIvs[Stats.ATTACK] ?: 0)
-        eggPokemon.persistentData.putInt(CALCULATED_IV_DEF_KEY, offspringIvs[Stats.DEFENCE] ?: 0)
-        eggPokemon.persistentData.putInt(CALCULATED_IV_SPA_KEY, offspringIvs[Stats.SPECIAL_ATTACK] ?: 0)
-        eggPokemon.persistentData.putInt(CALCULATED_IV_SPD_KEY, offspringIvs[Stats.SPECIAL_DEFENCE] ?: 0)
-        eggPokemon.persistentData.putInt(CALCULATED_IV_SPE_KEY, offspringIvs[Stats.SPEED] ?: 0)
-        eggPokemon.persistentData.putString(CALCULATED_NATURE_KEY, offspringNature.name.path)
-
-        val configEggShowZeroIvs = true
-        if (configEggShowZeroIvs) {
-            eggPokemon.ivs[Stats.HP] = 0
-            eggPokemon.ivs[Stats.ATTACK] = 0
-            eggPokemon.ivs[Stats.DEFENCE] = 0
-            eggPokemon.ivs[Stats.SPECIAL_ATTACK] = 0
-            eggPokemon.ivs[Stats.SPECIAL_DEFENCE] = 0
-            eggPokemon.ivs[Stats.SPEED] = 0
-        }
-
-        eggPokemon.setOriginalTrainer(player.uuid)
-        eggPokemon.nickname = Text.literal("Egg")
-        eggPokemon.scaleModifier = desiredEggScale
+        val eggPokemon = EggFactory.createEgg(
+            targetSpecies,
+            offspringIvs,
+            offspringNature,
+            scaleReferencePokemon,
+            ownerUUID
+        )
+        val eggEntity = PokemonEntity(world, eggPokemon)
 
         val spawnPosVec = pasturePos.toCenterPos()
         eggEntity.refreshPositionAndAngles(spawnPosVec.x, spawnPosVec.y, spawnPosVec.z, world.random.nextFloat() * 360.0f, 0.0f)
@@ -643,10 +597,10 @@ object BreedingManager {
 
 
         val pcStore =
-            Cobblemon.storage.getPC(player)
+            if (player != null) Cobblemon.storage.getPC(player) else Cobblemon.storage.getPC(ownerUUID, world.registryManager)
         if (!pcStore.add(eggPokemon)) {
             if (spawned) eggEntity.discard()
-            player.sendMessage(Text.literal("Your PC is full! Could not store the Pokémon Egg.").formatted(Formatting.YELLOW), false)
+            player?.sendMessage(Text.literal("Your PC is full! Could not store the Pokémon Egg.").formatted(Formatting.YELLOW), false)
             return false
         }
 
@@ -661,8 +615,8 @@ object BreedingManager {
         val eggTethering = PokemonPastureBlockEntity.Tethering(
             minRoamPos = eggMinRoam,
             maxRoamPos = eggMaxRoam,
-            playerId = player.uuid,
-            playerName = player.gameProfile.name,
+            playerId = ownerUUID,
+            playerName = ownerName,
             tetheringId = newTetheringId,
             pokemonId = eggPokemon.uuid,
             pcId = pcStore.uuid,
@@ -674,149 +628,154 @@ object BreedingManager {
             eggEntity.tethering = eggTethering
         }
 
-        pastureBlockEntity.markDirty()
-        eggTethering.toDTO(player)?.let { dto ->
-            com.cobblemon.mod.common.CobblemonNetwork.sendPacketToPlayer(player, PokemonPasturedPacket(dto))
+        PastureSyncBatcher.markDirty(pastureBlockEntity)
+        if (player != null) {
+            eggTethering.toDTO(player)?.let { dto ->
+                PastureSyncBatcher.queuePastured(world.server, player.uuid, eggPokemon.uuid, PokemonPasturedPacket(dto))
+            }
         }
-        player.sendMessage(Text.literal("A Pokémon Egg has been added to the pasture!").formatted(Formatting.GREEN), false)
+        player?.sendMessage(Text.literal("A Pokémon Egg has been added to the pasture!").formatted(Formatting.GREEN), false)
         return true
     }
 
-    private fun calculateMeetingPoint(entity1: PokemonEntity, entity2: PokemonEntity): Vec3d {
+    /**
+     * Midpoint between the two parents, moved onto the nearest standing surface in the pasture's roam box.
+     * The lookup goes through [PastureSurfaceCache], so its cost is bounded no matter what is below the pasture.
+     */
+    private fun calculateMeetingPoint(world: ServerWorld, pasturePos: BlockPos, entity1: PokemonEntity, entity2: PokemonEntity): Vec3d {
         val avgX = (entity1.x + entity2.x) / 2.0
         val avgZ = (entity1.z + entity2.z) / 2.0
         val avgY = (entity1.y + entity2.y) / 2.0
-        val world = entity1.world
-        val checkPos = BlockPos.Mutable(avgX.toInt(), avgY.toInt(), avgZ.toInt())
+        return PastureSurfaceCache.surfaceFor(world, pasturePos).nearestStandable(world, avgX, avgY, avgZ)
+            ?: Vec3d(avgX, avgY + 0.1, avgZ)
+    }
 
+    fun checkForInitialBreeders(world: ServerWorld, pastureBlockEntity: PokemonPastureBlockEntity, state: BreedingState) {
+        if (state.breedingStartTick != null || state.needsDurationCalc || state.isCalculatingDuration) return
+        if (pastureBlockEntity.tetheredPokemon.size < 2) return
+        tryStartBreeding(world, pastureBlockEntity, state)
+    }
 
+    /**
+     * Starts breeding with the pasture's pair if there is one and both parents' entities are loaded.
+     *
+     * @return false if the pasture's tethers contain no valid pair at all
+     */
+    private fun tryStartBreeding(world: ServerWorld, pastureBlockEntity: PokemonPastureBlockEntity, state: BreedingState): Boolean {
+        val pairing = pairingFor(world, pastureBlockEntity)
+        val firstId = pairing.firstId ?: return false
+        val secondId = pairing.secondId ?: return false
+        if (getPokemonEntityByPokemonUUID(world, pastureBlockEntity, firstId) == null) return true
+        if (getPokemonEntityByPokemonUUID(world, pastureBlockEntity, secondId) == null) return true
+
+        state.malePokemonUUID = firstId
+        state.femalePokemonUUID = secondId
+        state.isDittoPair = pairing.isDittoPair
+        state.breedingStartTick = world.time
+        state.needsDurationCalc = true
+        state.isCalculatingDuration = false
+        state.walkingStarted = false
+        state.meetingPoint = null
+        state.meetingEndTime = null
+        state.jumpCount = 0
+        state.lastJumpTick = 0L
+        state.heartsPlayed = false
+        state.breedingDurationTicks = BASE_BREEDING_DURATION_TICKS
+        state.breedingTier = 1
+        state.nextGeneration()
+        state.publish()
+        PastureSyncBatcher.markDirty(pastureBlockEntity)
+        return true
+    }
 
-        for (yOff in 0..5) {
-            checkPos.y = (avgY - yOff).toInt()
-            if (checkPos.y < world.bottomY) break
-            val stateDown = world.getBlockState(checkPos.down())
-            val stateAt = world.getBlockState(checkPos)
-            if (stateDown.isSolid && !stateDown.isLiquid && (stateAt.isAir || stateAt.isReplaceable)) {
-                return Vec3d(avgX, checkPos.y.toDouble(), avgZ)
-            }
-        }
-        for (yOff in 1..5) {
-            checkPos.y = (avgY + yOff).toInt()
-            if (checkPos.y >= world.topY) break
-            val stateDown = world.getBlockState(checkPos.down())
-            val stateAt = world.getBlockState(checkPos)
-            if (stateDown.isSolid && !stateDown.isLiquid && (stateAt.isAir || stateAt.isReplaceable)) {
-                return Vec3d(avgX, checkPos.y.toDouble(), avgZ)
+    /**
+     * The pasture's current pair, recomputed only after its tether list changed. The tether count is stored with
+     * the result as well, so tethers Cobblemon drops on its own (without going through the mixin) are noticed too.
+     * A "no pair" verdict is additionally checked against a hash of each tethered Pokémon's ID, gender and species,
+     * which catches edits to Pokémon that stay tethered.
+     */
+    private fun pairingFor(world: ServerWorld, pastureBlockEntity: PokemonPastureBlockEntity): Pairing {
+        val worldPos = WorldBlockPos(world.registryKey, pastureBlockEntity.pos)
+        val tethers = pastureBlockEntity.tetheredPokemon
+        pairings[worldPos]?.let { cached ->
+            if (cached.tetherCount == tethers.size && (cached.firstId != null || cached.tetherHash == tetherHash(tethers))) return cached
+        }
+
+        pairMatcher.reset(tethers.size)
+        var hash = 0L
+        for (i in tethers.indices) {
+            val pokemon = tethers[i].getPokemon()
+            hash = hash * 31 + tetherHash(tethers[i].pokemonId, pokemon)
+            val kind = when {
+                pokemon == null || EggCodec.isEgg(pokemon) -> PairMatcher.IGNORED
+                isDitto(pokemon) -> PairMatcher.DITTO
+                pokemon.gender == Gender.MALE -> PairMatcher.MALE
+                pokemon.gender == Gender.FEMALE -> PairMatcher.FEMALE
+                else -> PairMatcher.GENDERLESS
             }
+            pairMatcher.add(kind, pokemon?.species)
         }
-
-        checkPos.x = avgX.toInt()
-        checkPos.z = avgZ.toInt()
-        val topY = world.getTopY(net.minecraft.world.Heightmap.Type.MOTION_BLOCKING_NO_LEAVES, checkPos.x, checkPos.z)
-        for (y in topY downTo world.bottomY) {
-            checkPos.y = y
-            val stateDown = world.getBlockState(checkPos.down())
-            val stateAt = world.getBlockState(checkPos)
-            if (stateDown.isSolid && !stateDown.isLiquid && (stateAt.isAir || stateAt.isReplaceable)) {
-                return Vec3d(avgX, y.toDouble(), avgZ)
-            }
+        val result = pairMatcher.match()
+        val pairing = if (result == PairMatcher.NO_PAIR) {
+            Pairing(tethers.size, hash, null, null, false)
+        } else {
+            Pairing(tethers.size, hash, tethers[PairMatcher.first(result)].pokemonId, tethers[PairMatcher.second(result)].pokemonId, PairMatcher.isDittoPair(result))
         }
-        return Vec3d(avgX, avgY + 0.1, avgZ)
+        pairings[worldPos] = pairing
+        return pairing
     }
 
-    fun checkForInitialBreeders(world: ServerWorld, pastureBlockEntity: PokemonPastureBlockEntity, state: BreedingState) {
-        if (state.breedingStartTick != null || state.needsDurationCalc || state.isCalculatingDuration) return
-
-        val tetheredPokemonPairs = pastureBlockEntity.tetheredPokemon.mapNotNull { tether ->
-            tether.getPokemon()?.let { pokemon -> Pair(tether, pokemon) }
+    private fun tetherHash(tethers: List<PokemonPastureBlockEntity.Tethering>): Long {
+        var hash = 0L
+        for (i in tethers.indices) {
+            hash = hash * 31 + tetherHash(tethers[i].pokemonId, tethers[i].getPokemon())
         }
-        if (tetheredPokemonPairs.size < 2) return
-
-        var foundPair = false
-        var potentialMaleTether: PokemonPastureBlockEntity.Tethering? = null
-        var potentialFemaleTether: PokemonPastureBlockEntity.Tethering? = null
-        var isDittoPairResult = false
-
-        val dittos = tetheredPokemonPairs.filter { isDitto(it.second) }
-        val nonDittos = tetheredPokemonPairs.filterNot { isDitto(it.second) }
+        return hash
+    }
 
-        if (dittos.size == 1 && nonDittos.isNotEmpty()) {
-            val dittoPair = dittos.first()
-            val partnerPair = nonDittos.first()
-            potentialMaleTether = dittoPair.first
-            potentialFemaleTether = partnerPair.first
-            isDittoPairResult = true
-            foundPair = true
+    private fun tetherHash(pokemonId: UUID, pokemon: Pokemon?): Long {
+        var hash = pokemonId.mostSignificantBits xor pokemonId.leastSignificantBits
+        if (pokemon != null) {
+            hash = hash * 31 + pokemon.gender.ordinal
+            hash = hash * 31 + pokemon.species.resourceIdentifier.hashCode()
+            hash = hash * 31 + (if (EggCodec.isEgg(pokemon)) 1 else 0)
         }
+        return hash
+    }
 
-        if (!foundPair) {
-            val speciesMap = nonDittos.groupBy { it.second.species }
-
+    fun invalidatePairing(worldPos: WorldBlockPos) {
+        pairings.remove(worldPos)
+    }
 
-            for ((_/*species*/, tethersInSpecies) in speciesMap) {
-                if (tethersInSpecies.size < 2) continue
-                val males = tethersInSpecies.filter { it.second.gender == Gender.MALE }
-                val females = tethersInSpecies.filter { it.second.gender == Gender.FEMALE }
-                if (males.isNotEmpty() && females.isNotEmpty()) {
-                    potentialMaleTether = males.first().first
-                    potentialFemaleTether = females.first().first
-                    isDittoPairResult = false
-                    foundPair = true
-                    break
-                }
-            }
-        }
+    fun clearPairings() {
+        pairings.clear()
+    }
 
-        if (foundPair && potentialMaleTether != null && potentialFemaleTether != null) {
-            val maleEntityCheck = getPokemonEntityByPokemonUUID(world, pastureBlockEntity, potentialMaleTether.pokemonId)
-            val femaleEntityCheck = getPokemonEntityByPokemonUUID(world, pastureBlockEntity, potentialFemaleTether.pokemonId)
-
-            if (maleEntityCheck != null && femaleEntityCheck != null) {
-                state.malePokemonUUID = potentialMaleTether.pokemonId
-                state.femalePokemonUUID = potentialFemaleTether.pokemonId
-                state.isDittoPair = isDittoPairResult
-                state.breedingStartTick = world.time
-                state.needsDurationCalc = true
-                state.isCalculatingDuration = false
-                state.walkingStarted = false
-                state.meetingPoint = null
-                state.meetingEndTime = null
-                state.jumpCount = 0
-                state.lastJumpTick = 0L
-                state.heartsPlayed = false
-                state.breedingDurationTicks = BASE_BREEDING_DURATION_TICKS
-                state.breedingTier = 1
-            }
-        }
+    /**
+     * The entity's walk goal, attached to its goal selector the first time it is needed. The goal is stored on the
+     * entity itself, so both are collected together once the entity is gone.
+     */
+    private fun walkGoalFor(entity: PokemonEntity): WalkToPositionGoal? {
+        val holder = entity as? WalkGoalHolder ?: return null
+        holder.breedingWalkGoal?.let { return it }
+        val goalSelector = (entity as? MobEntityAccessor)?.goalSelector ?: return null
+        val goal = WalkToPositionGoal(entity, 1.0)
+        goalSelector.add(1, goal)
+        holder.breedingWalkGoal = goal
+        return goal
     }
 
-    private fun addWalkGoalIfNotPresent(entity: PokemonEntity, targetPos: Vec3d) {
-        val mobEntity = entity as? MobEntity ?: return
-        val goalSelector = (mobEntity as? MobEntityAccessor)?.goalSelector ?: return
-        val existingGoal = goalSelector.goals.find { wrappedGoal ->
-            (wrappedGoal.goal is WalkToPositionGoal) &&
-                    (wrappedGoal.goal as WalkToPositionGoal).isTarget(targetPos) &&
-                    wrappedGoal.isRunning
-        }
-        if (existingGoal == null) {
-            removeWalkGoal(entity)
-            val newGoal = WalkToPositionGoal(mobEntity, targetPos, 1.0)
-            goalSelector.add(1, newGoal)
-        }
+    private fun startWalk(entity: PokemonEntity, targetPos: Vec3d) {
+        walkGoalFor(entity)?.walkTo(targetPos)
     }
 
-    private fun removeWalkGoal(entity: PokemonEntity) {
-        val mobEntity = entity as? MobEntity ?: return
-        val goalSelector = (mobEntity as? MobEntityAccessor)?.goalSelector ?: return
-        val goalsToRemove = goalSelector.goals.filter { it.goal is WalkToPositionGoal }
-        if (goalsToRemove.isNotEmpty()) {
-            goalsToRemove.forEach { goalSelector.remove(it.goal) }
-        }
+    private fun stopWalk(entity: PokemonEntity) {
+        (entity as? WalkGoalHolder)?.breedingWalkGoal?.cancel()
     }
 
-    fun cancelBreeding(state: BreedingState, maleEntity: PokemonEntity?, femaleEntity: PokemonEntity?) {
-        maleEntity?.let { if (!it.isRemoved) removeWalkGoal(it) }
-        femaleEntity?.let { if (!it.isRemoved) removeWalkGoal(it) }
+    fun cancelBreeding(pastureBlockEntity: PokemonPastureBlockEntity, state: BreedingState, maleEntity: PokemonEntity?, femaleEntity: PokemonEntity?) {
+        maleEntity?.let { if (!it.isRemoved) stopWalk(it) }
+        femaleEntity?.let { if (!it.isRemoved) stopWalk(it) }
 
         state.breedingStartTick = null
         state.malePokemonUUID = null
@@ -832,42 +791,84 @@ object BreedingManager {
         state.jumpCount = 0
         state.lastJumpTick = 0L
         state.heartsPlayed = false
+        state.parentsGraceUntilTick = 0L
+        state.offlineCatchUpPending = false
+        state.nextGeneration()
+        state.publish()
+        PastureSyncBatcher.markDirty(pastureBlockEntity)
     }
 }
 
+/** Lifecycle of a [WalkToPositionGoal], read by the breeding state machine instead of scanning goal selectors. */
+enum class WalkStatus {
+    IDLE,
+    /** A target is set and the goal is waiting for the goal selector to start it. */
+    PENDING,
+    WALKING,
+    ARRIVED,
+    STUCK,
+    /** Cancelled, or interrupted by another goal. */
+    STOPPED
+}
+
+/**
+ * Walks a breeding parent to the meeting point. One instance is attached per entity on first use and reused for
+ * every breeding after that; it only runs while [walkTo] has given it a target.
+ */
 class WalkToPositionGoal(
     private val mob: MobEntity,
-    private val targetPos: Vec3d,
     private val speed: Double
 ) : Goal() {
+    private var targetPos: Vec3d? = null
     private var stuckTicks = 0
     private val targetReachedThresholdSq = BreedingManager.MEETING_THRESHOLD_SQ
 
+    var status = WalkStatus.IDLE
+        private set
+
+    val isWalking: Boolean
+        get() = status == WalkStatus.PENDING || status == WalkStatus.WALKING
+
     init {
         controls = EnumSet.of(Control.MOVE)
     }
 
-    fun isTarget(pos: Vec3d): Boolean = this.targetPos.squaredDistanceTo(pos) < 0.01
+    fun walkTo(target: Vec3d) {
+        targetPos = target
+        stuckTicks = 0
+        status = WalkStatus.PENDING
+    }
+
+    /** Ends the current walk; a running goal stops on the selector's next check. */
+    fun cancel() {
+        if (isWalking) status = WalkStatus.STOPPED
+    }
 
-    override fun canStart(): Boolean = true
+    override fun canStart(): Boolean = status == WalkStatus.PENDING && targetPos != null
 
     override fun start() {
-        mob.navigation.startMovingTo(targetPos.x, targetPos.y, targetPos.z, speed)
+        val target = targetPos ?: return
+        mob.navigation.startMovingTo(target.x, target.y, target.z, speed)
         stuckTicks = 0
+        status = WalkStatus.WALKING
     }
 
     override fun shouldContinue(): Boolean {
+        if (status != WalkStatus.WALKING) return false
+        val target = targetPos ?: return false
         if (mob.world.time % BreedingManager.TICK_THROTTLE != 0L && !mob.navigation.isIdle) {
             return true
         }
-        val distSq = mob.pos.squaredDistanceTo(targetPos)
+        val distSq = mob.pos.squaredDistanceTo(target)
         if (distSq <= targetReachedThresholdSq) {
+            status = WalkStatus.ARRIVED
             return false
         }
         val isNavigating = !mob.navigation.isIdle
         if (!isNavigating) {
             stuckTicks += BreedingManager.TICK_THROTTLE.toInt()
             if (stuckTicks > 60) {
+                status = WalkStatus.STUCK
                 return false
             }
         } else {
@@ -877,9 +878,11 @@ class WalkToPositionGoal(
     }
 
     override fun stop() {
-        if (!mob.navigation.isIdle) {
+        if (status == WalkStatus.WALKING) status = WalkStatus.STOPPED
+        val target = targetPos
+        if (target != null && !mob.navigation.isIdle) {
             val currentNavTargetPos = mob.navigation.targetPos
-            if (currentNavTargetPos != null && currentNavTargetPos.isWithinDistance(BlockPos.ofFloored(targetPos), 4.0)) {
+            if (currentNavTargetPos != null && currentNavTargetPos.isWithinDistance(BlockPos.ofFloored(target), 4.0)) {
                 mob.navigation.stop()
             }
         }
@@ -888,11 +891,17 @@ class WalkToPositionGoal(
 
     override fun tick() {
         if (mob.world.time % BreedingManager.TICK_THROTTLE != 0L) return
-        if (mob.navigation.isIdle && mob.pos.squaredDistanceTo(targetPos) > targetReachedThresholdSq) {
+        val target = targetPos ?: return
+        if (mob.navigation.isIdle && mob.pos.squaredDistanceTo(target) > targetReachedThresholdSq) {
 
             if (stuckTicks > 20 && stuckTicks % 20 == 0 && stuckTicks <= 60) {
-                mob.navigation.startMovingTo(targetPos.x, targetPos.y, targetPos.z, speed)
+                mob.navigation.startMovingTo(target.x, target.y, target.z, speed)
             }
         }
     }
-}
\ No newline at end of file
+}
+
+/** Implemented by `PokemonEntity` (via `PokemonEntityMixin`) to keep the entity's [WalkToPositionGoal] on it. */
+interface WalkGoalHolder {
+    var breedingWalkGoal: WalkToPositionGoal?
+}
@@ -0,0 +1,142 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.BreedingState
+import net.minecraft.nbt.NbtCompound
+import net.minecraft.nbt.NbtElement
+import java.util.UUID
+
+/**
+ * Compact, persisted form of an in-progress [BreedingState].
+ *
+ * Written into the pasture block entity's NBT so a breeding survives chunk unloads and restarts. Progress is
+ * stored as elapsed ticks rather than a world tick, and the habitat tier is kept, so a restored pair resumes
+ * its countdown without rescanning. Walking/meeting progress is not kept; a pair restored past its countdown
+ * simply walks to meet again.
+ *
+ * [lastSimulatedTick] is the world time the record was taken at, so the time the pasture spent unloaded can be
+ * credited on restore (see `BreedingConfig.Settings.offlineCatchUp`). The record is captured from the live state
+ * whenever the pasture saves, and a counting-down pasture is marked dirty on every particle pulse, so the chunk
+ * save on unload always writes current progress.
+ */
+data class BreedingRecord(
+    val malePokemonUUID: UUID,
+    val femalePokemonUUID: UUID,
+    val isDittoPair: Boolean,
+    val elapsedTicks: Long,
+    val breedingDurationTicks: Long,
+    val breedingTier: Int,
+    val habitatTypeMask: Int,
+    val habitatScanned: Boolean,
+    val lastSimulatedTick: Long
+) {
+
+    fun writeNbt(nbt: NbtCompound) {
+        val record = NbtCompound()
+        record.putInt(VERSION_KEY, VERSION)
+        record.putUuid(MALE_KEY, malePokemonUUID)
+        record.putUuid(FEMALE_KEY, femalePokemonUUID)
+        record.putBoolean(DITTO_PAIR_KEY, isDittoPair)
+        record.putLong(ELAPSED_KEY, elapsedTicks)
+        record.putLong(DURATION_KEY, breedingDurationTicks)
+        record.putByte(TIER_KEY, breedingTier.toByte())
+        record.putInt(TYPE_MASK_KEY, habitatTypeMask)
+        record.putBoolean(SCANNED_KEY, habitatScanned)
+        record.putLong(LAST_SIMULATED_KEY, lastSimulatedTick)
+        nbt.put(NBT_KEY, record)
+    }
+
+    /**
+     * Puts [state] back into its countdown as if it had been running for [elapsedTicks] at [currentTick].
+     * With [catchUp], the ticks since [lastSimulatedTick] are added on top and the state is flagged so the
+     * first tick after load can lay the eggs that came due in the meantime.
+     */
+    fun restore(state: BreedingState, currentTick: Long, catchUp: Boolean) {
+        val offlineTicks = if (catchUp && lastSimulatedTick > 0L) (currentTick - lastSimulatedTick).coerceAtLeast(0L) else 0L
+        state.malePokemonUUID = malePokemonUUID
+        state.femalePokemonUUID = femalePokemonUUID
+        state.isDittoPair = isDittoPair
+        state.breedingStartTick = currentTick - elapsedTicks - offlineTicks
+        state.offlineCatchUpPending = offlineTicks > 0L
+        state.breedingDurationTicks = breedingDurationTicks
+        state.breedingTier = breedingTier
+        state.habitatTypeMask = habitatTypeMask
+        state.needsDurationCalc = !habitatScanned
+        state.isCalculatingDuration = false
+        state.walkingStarted = false
+        state.meetingPoint = null
+        state.meetingEndTime = null
+        state.jumpCount = 0
+        state.lastJumpTick = 0L
+        state.heartsPlayed = false
+        state.lastParticleTick = 0L
+        state.parentsGraceUntilTick = currentTick + PARENTS_GRACE_TICKS
+        state.nextGeneration()
+        state.publish()
+    }
+
+    companion object {
+        const val NBT_KEY = "cobblebreedingState"
+
+        /** Pastured Pokémon entities load after the block entity; a restored pair waits this long for them. */
+        const val PARENTS_GRACE_TICKS = 200L
+
+        private const val VERSION = 1
+        private const val VERSION_KEY = "v"
+        private const val MALE_KEY = "male"
+        private const val FEMALE_KEY = "female"
+        private const val DITTO_PAIR_KEY = "ditto"
+        private const val ELAPSED_KEY = "elapsed"
+        private const val DURATION_KEY = "duration"
+        private const val TIER_KEY = "tier"
+        private const val TYPE_MASK_KEY = "types"
+        private const val SCANNED_KEY = "scanned"
+        private const val LAST_SIMULATED_KEY = "simulatedAt"
+
+        /** @return null if [state] has no breeding in progress. */
+        fun capture(state: BreedingState, currentTick: Long): BreedingRecord? {
+            val male = state.malePokemonUUID ?: return null
+            val female = state.femalePokemonUUID ?: return null
+            val startTick = state.breedingStartTick ?: return null
+            val scanned = !state.needsDurationCalc && !state.isCalculatingDuration
+            return BreedingRecord(
+                male,
+                female,
+                state.isDittoPair,
+                (currentTick - startTick).coerceIn(0L, state.breedingDurationTicks),
+                state.breedingDurationTicks,
+                state.breedingTier,
+                state.habitatTypeMask,
+                scanned,
+                currentTick
+            )
+        }
+
+        /** @return null if [nbt] holds no record, or one written by an incompatible version. */
+        fun readNbt(nbt: NbtCompound): BreedingRecord? {
+            if (!nbt.contains(NBT_KEY, NbtElement.COMPOUND_TYPE.toInt())) return null
+            val record = nbt.getCompound(NBT_KEY)
+            if (record.getInt(VERSION_KEY) != VERSION || !record.containsUuid(MALE_KEY) || !record.containsUuid(FEMALE_KEY)) return null
+            val duration = record.getLong(DURATION_KEY)
+            if (duration <= 0L) return null
+            return BreedingRecord(
+                record.getUuid(MALE_KEY),
+                record.getUuid(FEMALE_KEY),
+                record.getBoolean(DITTO_PAIR_KEY),
+                record.getLong(ELAPSED_KEY).coerceIn(0L, duration),
+                duration,
+                record.getByte(TIER_KEY).toInt().coerceIn(1, 3),
+                record.getInt(TYPE_MASK_KEY),
+                record.getBoolean(SCANNED_KEY),
+                record.getLong(LAST_SIMULATED_KEY)
+            )
+        }
+    }
+}
+
+/**
+ * Implemented by the pasture block entity (via `PokemonPastureBlockEntityMixin`). Holds the record read from NBT
+ * until the pasture registers on chunk load. Saving always captures a fresh record from the live state instead.
+ */
+interface BreedingRecordHolder {
+    var pendingBreedingRecord: BreedingRecord?
+}
@@ -0,0 +1,97 @@
+package com.cobblebreeding.utils
+
+import java.util.Locale
+import java.util.concurrent.atomic.AtomicIntegerArray
+
+enum class TraceCategory {
+    /** Pasture block entity setup: roam box changes on init and tether. */
+    PASTURE,
+    /** Tether compatibility decisions. */
+    TETHER,
+    /** Habitat scans and breeding tier results. */
+    HABITAT,
+    /** Byte accounting for batched pasture packets, shown by `/cobblemonbreeding sync`. Costs an extra encode per packet. */
+    SYNC;
+
+    val bit: Int
+        get() = 1 shl ordinal
+}
+
+/**
+ * Opt-in diagnostics for the hot paths, kept in memory instead of the log.
+ *
+ * Callers check [isEnabled] before building any message, so a disabled category costs one volatile read. Enabled
+ * categories can be sampled (one event in every `traceSampleEvery`), and recorded events go into a fixed-size ring
+ * buffer that admins read with `/cobblemonbreeding trace`. Categories come from `traceCategories` in the config.
+ */
+object BreedingTrace {
+
+    class TraceEvent(val timeMillis: Long, val category: TraceCategory, val event: String, val detail: String) {
+        override fun toString(): String = "$timeMillis ${category.name.lowercase(Locale.ROOT)} $event $detail"
+    }
+
+    @Volatile
+    private var enabledMask = 0
+    @Volatile
+    private var sampleEvery = 1
+    private val sampleCounters = AtomicIntegerArray(TraceCategory.entries.size)
+
+    private var buffer = arrayOfNulls<TraceEvent>(DEFAULT_CAPACITY)
+    private var next = 0
+    private var recorded = 0L
+
+    fun configure(settings: BreedingConfig.Settings) {
+        var mask = 0
+        settings.traceCategories.forEach { name ->
+            TraceCategory.entries.find { it.name.equals(name, ignoreCase = true) }?.let { mask = mask or it.bit }
+        }
+        synchronized(this) {
+            if (buffer.size != settings.traceBufferSize) {
+                buffer = arrayOfNulls(settings.traceBufferSize)
+                next = 0
+            }
+        }
+        sampleEvery = settings.traceSampleEvery
+        enabledMask = mask
+    }
+
+    /** @return true if an event of [category] should be recorded now; build the message only after this. */
+    fun isEnabled(category: TraceCategory): Boolean {
+        if (enabledMask and category.bit == 0) return false
+        val every = sampleEvery
+        return every <= 1 || sampleCounters.incrementAndGet(category.ordinal) % every == 0
+    }
+
+    /** Unsampled check, for counters that have to see every event of [category] to stay meaningful. */
+    fun isCategoryEnabled(category: TraceCategory): Boolean = enabledMask and category.bit != 0
+
+    @Synchronized
+    fun record(category: TraceCategory, event: String, detail: String) {
+        buffer[next] = TraceEvent(System.currentTimeMillis(), category, event, detail)
+        next = (next + 1) % buffer.size
+        recorded++
+    }
+
+    /** Buffered events, oldest first. */
+    @Synchronized
+    fun snapshot(): List<TraceEvent> {
+        val events = ArrayList<TraceEvent>(buffer.size)
+        for (i in buffer.indices) {
+            buffer[(next + i) % buffer.size]?.let { events.add(it) }
+        }
+        return events
+    }
+
+    @Synchronized
+    fun recordedCount(): Long = recorded
+
+    fun enabledCategories(): List<TraceCategory> = TraceCategory.entries.filter { enabledMask and it.bit != 0 }
+
+    @Synchronized
+    fun clear() {
+        buffer.fill(null)
+        next = 0
+    }
+
+    private const val DEFAULT_CAPACITY = 256
+}
@@ -0,0 +1,59 @@
+package com.cobblebreeding.utils
+
+import com.cobblemon.mod.common.Cobblemon
+import com.cobblemon.mod.common.api.reactive.ObservableSubscription
+import com.cobblemon.mod.common.api.storage.party.PlayerPartyStore
+import net.minecraft.server.network.ServerPlayerEntity
+import java.util.UUID
+
+/**
+ * Online players that currently have at least one egg in their party.
+ *
+ * Each player's party is watched through its any-change observable from join to disconnect, so membership is
+ * updated only when party contents change and step crediting never has to look at players without eggs.
+ * Server thread only.
+ */
+object EggCarrierRegistry {
+
+    private val carriers = LinkedHashSet<UUID>()
+    private val subscriptions = HashMap<UUID, ObservableSubscription<*>>()
+
+    val size: Int
+        get() = carriers.size
+
+    fun carriers(): Collection<UUID> = carriers
+
+    fun isCarrier(playerId: UUID): Boolean = carriers.contains(playerId)
+
+    fun onJoin(player: ServerPlayerEntity) {
+        val playerId = player.uuid
+        subscriptions.remove(playerId)?.unsubscribe()
+        val party = Cobblemon.storage.getParty(player)
+        party.forEach { EggCodec.migrateLegacy(it) }
+        subscriptions[playerId] = party.getAnyChangeObservable().subscribe { refresh(playerId, party) }
+        refresh(playerId, party)
+    }
+
+    fun onDisconnect(playerId: UUID) {
+        subscriptions.remove(playerId)?.unsubscribe()
+        setCarrier(playerId, false)
+    }
+
+    fun clear() {
+        subscriptions.values.forEach { it.unsubscribe() }
+        subscriptions.clear()
+        carriers.clear()
+    }
+
+    private fun refresh(playerId: UUID, party: PlayerPartyStore) {
+        HatchManager.onPartyChanged(playerId)
+        setCarrier(playerId, party.any { EggCodec.isEgg(it) })
+    }
+
+    private fun setCarrier(playerId: UUID, carrying: Boolean) {
+        val changed = if (carrying) carriers.add(playerId) else carriers.remove(playerId)
+        if (changed) {
+            HatchManager.onCarrierChanged(playerId, carrying)
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.cobblebreeding.utils
+
+import com.cobblemon.mod.common.api.pokemon.Natures
+import com.cobblemon.mod.common.api.pokemon.stats.Stat
+import com.cobblemon.mod.common.api.pokemon.stats.Stats
+import com.cobblemon.mod.common.pokemon.Nature
+import com.cobblemon.mod.common.pokemon.Pokemon
+import net.minecraft.nbt.NbtCompound
+import net.minecraft.nbt.NbtElement
+import java.util.UUID
+
+/**
+ * Everything an egg carries until it hatches.
+ *
+ * [ivs] are in [EggCodec.IV_STATS] order and [natureIndex] indexes [EggCodec.NATURE_NAMES] (-1 for none).
+ * Only [currentSteps] changes after creation; update it through [EggCodec.setCurrentSteps] so the stored
+ * copy stays in sync.
+ */
+class EggData(
+    val targetSpecies: String,
+    val ivs: IntArray,
+    val natureIndex: Int,
+    val totalSteps: Int,
+    currentSteps: Int
+) {
+    var currentSteps: Int = currentSteps
+        internal set
+
+    val isReadyToHatch: Boolean
+        get() = totalSteps > 0 && currentSteps >= totalSteps
+
+    fun iv(stat: Stat): Int {
+        val index = EggCodec.IV_STATS.indexOf(stat)
+        return if (index < 0) 0 else ivs[index]
+    }
+
+    fun nature(): Nature? = EggCodec.natureAt(natureIndex)
+}
+
+/**
+ * Stores [EggData] in a Pokémon's `persistentData` as one versioned compound:
+ * the target species' showdown ID plus an int array of `[packed IVs, packed steps, nature index]`.
+ * IVs take 5 bits each, and the total and current step counters take 16 bits each.
+ *
+ * Decoded data is cached per Pokémon UUID in a small LRU, so the eggs being stepped stay cached while one-off
+ * reads (pasture scans, PC views) age out. A cache entry is only trusted while the Pokémon still holds the same
+ * compound instance it was decoded from, so reloads or external NBT edits are picked up on the next read.
+ * Eggs written with the old loose-key layout (`is_egg`, `target_species`, ...) can still be read; they are
+ * migrated when their party loads ([migrateLegacy]) or the next time they are written. Server thread only.
+ */
+object EggCodec {
+
+    const val EGG_DATA_KEY = "cobblebreeding_egg"
+    private const val VERSION = 1
+    private const val VERSION_KEY = "v"
+    private const val SPECIES_KEY = "s"
+    private const val DATA_KEY = "d"
+
+    private const val IV_BITS = 5
+    private const val IV_MASK = (1 shl IV_BITS) - 1
+    private const val STEP_MASK = 0xFFFF
+
+    val IV_STATS: List<Stat> = listOf(Stats.HP, Stats.ATTACK, Stats.DEFENCE, Stats.SPECIAL_ATTACK, Stats.SPECIAL_DEFENCE, Stats.SPEED)
+
+    /** Fixed nature order for the stored index. Append only; never reorder. */
+    val NATURE_NAMES: List<String> = listOf(
+        "hardy", "lonely", "brave", "adamant", "naughty",
+        "bold", "docile", "relaxed", "impish", "lax",
+        "timid", "hasty", "serious", "jolly", "naive",
+        "modest", "mild", "quiet", "bashful", "rash",
+        "calm", "gentle", "sassy", "careful", "quirky"
+    )
+
+    private const val LEGACY_EGG_KEY = "is_egg"
+    private const val LEGACY_TARGET_SPECIES_KEY = "target_species"
+    private const val LEGACY_TOTAL_STEPS_KEY = "totalHatchSteps"
+    private const val LEGACY_CURRENT_STEPS_KEY = "currentHatchSteps"
+    private const val LEGACY_NATURE_KEY = "calculatedNature"
+    private val LEGACY_IV_KEYS = listOf(
+        "calculatedIVHP", "calculatedIVAtk", "calculatedIVDef", "calculatedIVSpA", "calculatedIVSpD", "calculatedIVSpe"
+    )
+
+    private class CacheEntry(val source: NbtCompound, val data: EggData)
+
+    private const val MAX_CACHED_EGGS = 256
+
+    private val cache = object : LinkedHashMap<UUID, CacheEntry>(64, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<UUID, CacheEntry>): Boolean = size > MAX_CACHED_EGGS
+    }
+
+    fun isEgg(pokemon: Pokemon?): Boolean = pokemon != null && get(pokemon) != null
+
+    /** @return the egg data of [pokemon], or null if it is not an egg. */
+    fun get(pokemon: Pokemon): EggData? {
+        val persistentData = pokemon.persistentData
+        val stored = persistentData.get(EGG_DATA_KEY)
+        val cached = cache[pokemon.uuid]
+        if (cached != null && stored != null && cached.source === stored) return cached.data
+
+        if (stored is NbtCompound) {
+            val data = decode(stored)
+            if (data != null) {
+                cache[pokemon.uuid] = CacheEntry(stored, data)
+                return data
+            }
+        }
+        cache.remove(pokemon.uuid)
+        if (stored == null && persistentData.getBoolean(LEGACY_EGG_KEY)) {
+            return decodeLegacy(persistentData)
+        }
+        return null
+    }
+
+    /** Writes [data] in the current layout, dropping any legacy keys. */
+    fun write(pokemon: Pokemon, data: EggData) {
+        val compound = encode(data)
+        val persistentData = pokemon.persistentData
+        if (persistentData.contains(LEGACY_EGG_KEY)) removeLegacyKeys(persistentData)
+        persistentData.put(EGG_DATA_KEY, compound)
+        cache[pokemon.uuid] = CacheEntry(compound, data)
+    }
+
+    /**
+     * Rewrites an egg stored in the legacy layout in the current one.
+     * @return true if [pokemon] was migrated
+     */
+    fun migrateLegacy(pokemon: Pokemon): Boolean {
+        val persistentData = pokemon.persistentData
+        if (persistentData.contains(EGG_DATA_KEY) || !persistentData.getBoolean(LEGACY_EGG_KEY)) return false
+        write(pokemon, decodeLegacy(persistentData))
+        return true
+    }
+
+    fun setCurrentSteps(pokemon: Pokemon, data: EggData, currentSteps: Int) {
+        data.currentSteps = currentSteps.coerceIn(0, STEP_MASK)
+        val entry = cache[pokemon.uuid]
+        val stored = pokemon.persistentData.get(EGG_DATA_KEY)
+        if (entry != null && entry.data === data && stored === entry.source) {
+            entry.source.putIntArray(DATA_KEY, packData(data))
+        } else {
+            write(pokemon, data)
+        }
+    }
+
+    /** Drops [pokemon]'s cache entry, e.g. once the egg has hatched. */
+    fun forget(pokemon: Pokemon) {
+        cache.remove(pokemon.uuid)
+    }
+
+    fun clearCache() {
+        cache.clear()
+    }
+
+    fun natureIndex(nature: Nature?): Int = if (nature == null) -1 else NATURE_NAMES.indexOf(nature.name.path)
+
+    fun natureAt(index: Int): Nature? = NATURE_NAMES.getOrNull(index)?.let { Natures.getNature(it) }
+
+    fun packIvs(ivs: IntArray): Int {
+        var packed = 0
+        for (i in IV_STATS.indices) {
+            packed = packed or ((ivs[i] and IV_MASK) shl (i * IV_BITS))
+        }
+        return packed
+    }
+
+    fun unpackIvs(packed: Int): IntArray = IntArray(IV_STATS.size) { i -> (packed ushr (i * IV_BITS)) and IV_MASK }
+
+    private fun packData(data: EggData): IntArray = intArrayOf(
+        packIvs(data.ivs),
+        ((data.totalSteps and STEP_MASK) shl 16) or (data.currentSteps and STEP_MASK),
+        data.natureIndex
+    )
+
+    private fun encode(data: EggData): NbtCompound {
+        val compound = NbtCompound()
+        compound.putByte(VERSION_KEY, VERSION.toByte())
+        compound.putString(SPECIES_KEY, data.targetSpecies)
+        compound.putIntArray(DATA_KEY, packData(data))
+        return compound
+    }
+
+    private fun decode(compound: NbtCompound): EggData? {
+        if (compound.getByte(VERSION_KEY).toInt() != VERSION) return null
+        if (!compound.contains(DATA_KEY, NbtElement.INT_ARRAY_TYPE.toInt())) return null
+        val packed = compound.getIntArray(DATA_KEY)
+        if (packed.size < 3) return null
+        return EggData(
+            compound.getString(SPECIES_KEY),
+            unpackIvs(packed[0]),
+            packed[2],
+            (packed[1] ushr 16) and STEP_MASK,
+            packed[1] and STEP_MASK
+        )
+    }
+
+    private fun decodeLegacy(persistentData: NbtCompound): EggData {
+        val natureName = persistentData.getString(LEGACY_NATURE_KEY).substringAfterLast(':')
+        return EggData(
+            persistentData.getString(LEGACY_TARGET_SPECIES_KEY),
+            IntArray(IV_STATS.size) { i -> persistentData.getInt(LEGACY_IV_KEYS[i]).coerceIn(0, IV_MASK) },
+            NATURE_NAMES.indexOf(natureName),
+            persistentData.getInt(LEGACY_TOTAL_STEPS_KEY).coerceIn(0, STEP_MASK),
+            persistentData.getInt(LEGACY_CURRENT_STEPS_KEY).coerceIn(0, STEP_MASK)
+        )
+    }
+
+    private fun removeLegacyKeys(persistentData: NbtCompound) {
+        persistentData.remove(LEGACY_EGG_KEY)
+        persistentData.remove(LEGACY_TARGET_SPECIES_KEY)
+        persistentData.remove(LEGACY_TOTAL_STEPS_KEY)
+        persistentData.remove(LEGACY_CURRENT_STEPS_KEY)
+        persistentData.remove(LEGACY_NATURE_KEY)
+        LEGACY_IV_KEYS.forEach { persistentData.remove(it) }
+    }
+}
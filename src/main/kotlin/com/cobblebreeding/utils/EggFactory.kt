@@ -0,0 +1,86 @@
+package com.cobblebreeding.utils
+
+import com.cobblemon.mod.common.api.pokemon.PokemonProperties
+import com.cobblemon.mod.common.pokemon.Nature
+import com.cobblemon.mod.common.pokemon.Pokemon
+import com.cobblemon.mod.common.pokemon.Species
+import net.minecraft.text.Text
+import net.minecraft.util.Identifier
+import java.util.Locale
+import java.util.UUID
+
+/**
+ * Creates egg Pokémon. This is the supported entry point for other mods and commands that want to hand out eggs.
+ *
+ * Eggs are built from one prebuilt `PokemonProperties` template per type aspect instead of parsing a properties
+ * string per egg, and the offspring data is written as a single [EggCodec] record. Scale factors are cached per
+ * species. The returned Pokémon is not stored or spawned; callers add it to a PC/party or wrap it in an entity.
+ * Server thread only.
+ */
+object EggFactory {
+
+    private val EGG_SPECIES_ID: Identifier = Identifier.of("cobblemon", "egg")
+    private const val DEFAULT_EGG_CYCLES = 10
+    private const val SCALE_HEIGHT_DIVISOR = 15.0f
+    private const val MIN_EGG_SCALE = 0.1f
+    private const val MAX_EGG_SCALE = 1.2f
+
+    private val templatesByTypeAspect: Map<String, PokemonProperties> by lazy {
+        HabitatMaskTable.TYPES.associateWith { typeAspect ->
+            PokemonProperties.parse("${EGG_SPECIES_ID.path} level=1 aspect=$typeAspect")
+        }
+    }
+
+    /** Species ID -> egg scale before the parent's own scale modifier is applied. */
+    private val baseScaleBySpecies = HashMap<Identifier, Float>()
+
+    /**
+     * @param targetSpecies species the egg hatches into (hatching resolves its base form).
+     * @param ivs offspring IVs in [EggCodec.IV_STATS] order.
+     * @param nature offspring nature, or null to leave it to the hatch.
+     * @param scaleReference parent whose size the egg's size follows; the target species at normal scale if null.
+     * @param originalTrainer owner recorded on the egg, if any.
+     */
+    fun createEgg(
+        targetSpecies: Species,
+        ivs: IntArray,
+        nature: Nature?,
+        scaleReference: Pokemon? = null,
+        originalTrainer: UUID? = null
+    ): Pokemon {
+        val typeAspect = targetSpecies.primaryType.name.lowercase(Locale.ROOT)
+        val template = templatesByTypeAspect[typeAspect] ?: templatesByTypeAspect.getValue("normal")
+        val eggPokemon = template.create()
+
+        EggCodec.write(eggPokemon, EggData(targetSpecies.showdownId(), ivs.copyOf(), EggCodec.natureIndex(nature), totalSteps(targetSpecies), 0))
+
+        // The real IVs live in the egg record; the egg itself shows zeroes.
+        EggCodec.IV_STATS.forEach { stat -> eggPokemon.ivs[stat] = 0 }
+
+        originalTrainer?.let { eggPokemon.setOriginalTrainer(it) }
+        eggPokemon.nickname = Text.literal("Egg")
+        eggPokemon.scaleModifier = if (scaleReference != null) {
+            eggScale(scaleReference.species, scaleReference.scaleModifier)
+        } else {
+            eggScale(targetSpecies, 1.0f)
+        }
+        return eggPokemon
+    }
+
+    fun totalSteps(species: Species): Int {
+        val eggCycles = species.eggCycles
+        return (if (eggCycles > 1) eggCycles else DEFAULT_EGG_CYCLES) * BreedingManager.STEPS_PER_EGG_CYCLE
+    }
+
+    fun eggScale(species: Species, scaleModifier: Float): Float {
+        val baseScale = baseScaleBySpecies.getOrPut(species.resourceIdentifier) {
+            species.height.toFloat() / SCALE_HEIGHT_DIVISOR * 0.5f
+        }
+        return (baseScale * scaleModifier).coerceIn(MIN_EGG_SCALE, MAX_EGG_SCALE)
+    }
+
+    /** Drops per-species caches; species heights can change with a datapack reload. */
+    fun clearCaches() {
+        baseScaleBySpecies.clear()
+    }
+}
@@ -0,0 +1,69 @@
+package com.cobblebreeding.utils
+
+/**
+ * The egg slots of one party as primitives: a bitmask of slots holding an egg plus current and total step arrays.
+ *
+ * Crediting steps is plain arithmetic over set bits with no allocation. Slots whose steps changed since the last
+ * [markClean] are tracked in [dirtyMask] so the caller can write them back in batches.
+ * No Minecraft or Cobblemon types, so it can be benchmarked headless.
+ */
+class EggSlots {
+
+    var eggMask: Int = 0
+        private set
+
+    var dirtyMask: Int = 0
+        private set
+
+    private val currentSteps = IntArray(PARTY_SIZE)
+    private val totalSteps = IntArray(PARTY_SIZE)
+
+    fun set(slot: Int, current: Int, total: Int) {
+        eggMask = eggMask or (1 shl slot)
+        currentSteps[slot] = current
+        totalSteps[slot] = total
+    }
+
+    fun currentSteps(slot: Int): Int = currentSteps[slot]
+
+    fun totalSteps(slot: Int): Int = totalSteps[slot]
+
+    fun hasEgg(slot: Int): Boolean = eggMask and (1 shl slot) != 0
+
+    fun isReady(slot: Int): Boolean = hasEgg(slot) && totalSteps[slot] > 0 && currentSteps[slot] >= totalSteps[slot]
+
+    fun markClean(mask: Int) {
+        dirtyMask = dirtyMask and mask.inv()
+    }
+
+    fun clear() {
+        eggMask = 0
+        dirtyMask = 0
+    }
+
+    /**
+     * Adds [steps] to every egg still short of its total, capped at the total.
+     * @return the mask of slots that reached their total with this call.
+     */
+    fun credit(steps: Int): Int {
+        var ready = 0
+        var bits = eggMask
+        while (bits != 0) {
+            val slot = Integer.numberOfTrailingZeros(bits)
+            bits = bits and (bits - 1)
+            val total = totalSteps[slot]
+            val current = currentSteps[slot]
+            if (total <= 0 || current >= total) continue
+
+            val updated = if (steps >= total - current) total else current + steps
+            currentSteps[slot] = updated
+            dirtyMask = dirtyMask or (1 shl slot)
+            if (updated >= total) ready = ready or (1 shl slot)
+        }
+        return ready
+    }
+
+    companion object {
+        const val PARTY_SIZE = 6
+    }
+}
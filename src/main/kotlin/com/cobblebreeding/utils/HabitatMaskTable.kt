@@ -0,0 +1,51 @@
+package com.cobblebreeding.utils
+
+/**
+ * Block raw ID -> bitmask of the Pokémon types that favour it, one table for base blocks and one for decorations.
+ *
+ * Bit `i` stands for `TYPES[i]`. Scoring a footprint is then a loop of array reads and bit tests with no
+ * allocation. IDs beyond the end of the table (blocks registered after it was built) have no types.
+ * This class deliberately has no Minecraft dependencies so it can be benchmarked headless.
+ */
+class HabitatMaskTable(private val baseMasks: IntArray, private val decorMasks: IntArray) {
+
+    fun baseMask(blockId: Int): Int = if (blockId >= 0 && blockId < baseMasks.size) baseMasks[blockId] else 0
+
+    fun decorMask(blockId: Int): Int = if (blockId >= 0 && blockId < decorMasks.size) decorMasks[blockId] else 0
+
+    /**
+     * Counts favourable positions for [typeMask] in two equally sized layers of [blockIds]: `columns` base
+     * blocks starting at [baseOffset] and `columns` decoration blocks starting at [decorOffset].
+     */
+    fun countFavorable(blockIds: IntArray, baseOffset: Int, decorOffset: Int, columns: Int, typeMask: Int): Int {
+        var count = 0
+        for (i in 0 until columns) {
+            if (baseMask(blockIds[baseOffset + i]) and typeMask != 0) count++
+            if (decorMask(blockIds[decorOffset + i]) and typeMask != 0) count++
+        }
+        return count
+    }
+
+    companion object {
+        val TYPES = listOf(
+            "normal", "fire", "water", "grass", "electric", "ice", "fighting", "poison", "ground",
+            "flying", "psychic", "bug", "rock", "ghost", "dragon", "dark", "steel", "fairy"
+        )
+
+        fun typeBit(typeName: String): Int {
+            val index = TYPES.indexOf(typeName)
+            return if (index < 0) 0 else 1 shl index
+        }
+
+        fun typeMask(typeNames: Collection<String>): Int = typeNames.fold(0) { mask, name -> mask or typeBit(name) }
+
+        /** Builds a table from type name -> favoured block raw IDs. */
+        fun build(tableSize: Int, baseIdsByType: Map<String, IntArray>, decorIdsByType: Map<String, IntArray>): HabitatMaskTable {
+            val baseMasks = IntArray(tableSize)
+            val decorMasks = IntArray(tableSize)
+            baseIdsByType.forEach { (type, ids) -> ids.forEach { baseMasks[it] = baseMasks[it] or typeBit(type) } }
+            decorIdsByType.forEach { (type, ids) -> ids.forEach { decorMasks[it] = decorMasks[it] or typeBit(type) } }
+            return HabitatMaskTable(baseMasks, decorMasks)
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.cobblebreeding.utils
+
+import net.minecraft.block.Block
+import net.minecraft.block.Blocks
+import net.minecraft.registry.Registries
+import net.minecraft.server.world.ServerWorld
+import net.minecraft.util.math.BlockPos
+
+/**
+ * Immutable copy of the blocks in a square footprint around a position, stored as block raw IDs.
+ *
+ * Capturing has to happen on the server thread (it reads chunk sections directly); the resulting snapshot
+ * is plain data and can be handed to worker threads for scoring. Positions are addressed by layer and
+ * offset from the center, so any habitat check with a different radius or set of layers can reuse it.
+ */
+class HabitatSnapshot private constructor(
+    val center: BlockPos,
+    val radius: Int,
+    private val layerOffsets: IntArray,
+    private val blockIds: IntArray
+) {
+
+    val width: Int
+        get() = 2 * radius + 1
+
+    val layerCount: Int
+        get() = layerOffsets.size
+
+    val size: Int
+        get() = blockIds.size
+
+    fun layerOffset(layer: Int): Int = layerOffsets[layer]
+
+    fun index(layer: Int, dx: Int, dz: Int): Int = (layer * width + (dx + radius)) * width + (dz + radius)
+
+    /** Raw block ID at [index], as returned by [index]. */
+    fun blockIdAt(index: Int): Int = blockIds[index]
+
+    fun blockIdAt(layer: Int, dx: Int, dz: Int): Int = blockIds[index(layer, dx, dz)]
+
+    fun blockAt(layer: Int, dx: Int, dz: Int): Block = Registries.BLOCK.get(blockIdAt(layer, dx, dz))
+
+    fun layerStart(layer: Int): Int = layer * width * width
+
+    fun copyBlockIds(): IntArray = blockIds.copyOf()
+
+    /** Favourable positions for [typeMask] across a base layer and a decoration layer of this snapshot. */
+    fun countFavorable(table: HabitatMaskTable, baseLayer: Int, decorLayer: Int, typeMask: Int): Int =
+        table.countFavorable(blockIds, layerStart(baseLayer), layerStart(decorLayer), width * width, typeMask)
+
+    companion object {
+        private val AIR_ID = Registries.BLOCK.getRawId(Blocks.AIR)
+
+        /**
+         * Copies the `(2 * radius + 1)²` columns around [center] at each of the Y offsets in [layerOffsets].
+         * Positions in unloaded chunks or outside the build height are recorded as air; this never loads chunks.
+         */
+        fun capture(world: ServerWorld, center: BlockPos, radius: Int, layerOffsets: IntArray): HabitatSnapshot {
+            val width = 2 * radius + 1
+            val blockIds = IntArray(layerOffsets.size * width * width)
+            val chunkManager = world.chunkManager
+
+            var i = 0
+            for (layer in layerOffsets.indices) {
+                val y = center.y + layerOffsets[layer]
+                val outOfHeight = world.isOutOfHeightLimit(y)
+                for (x in center.x - radius..center.x + radius) {
+                    for (z in center.z - radius..center.z + radius) {
+                        val chunk = if (outOfHeight) null else chunkManager.getWorldChunk(x shr 4, z shr 4)
+                        blockIds[i++] = if (chunk == null) {
+                            AIR_ID
+                        } else {
+                            val section = chunk.getSection(chunk.getSectionIndex(y))
+                            Registries.BLOCK.getRawId(section.getBlockState(x and 15, y and 15, z and 15).block)
+                        }
+                    }
+                }
+            }
+            return HabitatSnapshot(center.toImmutable(), radius, layerOffsets.copyOf(), blockIds)
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.WorldBlockPos
+import net.minecraft.block.BlockState
+import net.minecraft.registry.Registries
+import net.minecraft.server.world.ServerWorld
+import net.minecraft.util.math.BlockPos
+import net.minecraft.util.math.ChunkPos
+
+/**
+ * Live favourable-block counts for one pasture's habitat footprint.
+ *
+ * Starts from a [HabitatSnapshot] and is then kept current from block change notifications, so reading the
+ * count for any type combination is O(1) (single types) or one array pass (first read of a dual-type mask).
+ * The per-type counts are produced off-thread from the snapshot; until [complete] is called the counter is
+ * pending and only remembers whether anything changed in the meantime.
+ */
+class HabitatCounter internal constructor(
+    val worldPos: WorldBlockPos,
+    snapshot: HabitatSnapshot,
+    private val table: HabitatMaskTable,
+    baseLayer: Int,
+    decorLayer: Int
+) : BlockChangeListener {
+
+    private val center = snapshot.center
+    private val radius = snapshot.radius
+    private val columns = snapshot.width * snapshot.width
+    private val baseY = center.y + snapshot.layerOffset(baseLayer)
+    private val decorY = center.y + snapshot.layerOffset(decorLayer)
+    private val baseOffset = snapshot.layerStart(baseLayer)
+    private val decorOffset = snapshot.layerStart(decorLayer)
+    private val blockIds = snapshot.copyBlockIds()
+
+    private var typeCounts: IntArray? = null
+    private var changedWhilePending = false
+    private var trackedMask = 0
+    private var trackedCount = 0
+
+    internal var registration: BlockChangeDispatcher.Registration? = null
+
+    val isReady: Boolean
+        get() = typeCounts != null
+
+    /** Installs the counts computed from the snapshot, recounting if blocks changed while they were computed. */
+    internal fun complete(countsFromSnapshot: IntArray) {
+        typeCounts = if (changedWhilePending) countTypes(table, blockIds, baseOffset, decorOffset, columns) else countsFromSnapshot
+        changedWhilePending = false
+    }
+
+    fun favorableCount(typeMask: Int): Int {
+        val counts = typeCounts ?: return 0
+        if (typeMask == 0) return 0
+        if (typeMask and (typeMask - 1) == 0) return counts[Integer.numberOfTrailingZeros(typeMask)]
+        if (typeMask != trackedMask) {
+            trackedMask = typeMask
+            trackedCount = table.countFavorable(blockIds, baseOffset, decorOffset, columns, typeMask)
+        }
+        return trackedCount
+    }
+
+    override fun onBlockChanged(world: ServerWorld, pos: BlockPos, oldState: BlockState, newState: BlockState) {
+        val isBase = pos.y == baseY
+        if (!isBase && pos.y != decorY) return
+        val dx = pos.x - center.x
+        val dz = pos.z - center.z
+        if (dx < -radius || dx > radius || dz < -radius || dz > radius) return
+
+        val column = (dx + radius) * (2 * radius + 1) + (dz + radius)
+        val index = (if (isBase) baseOffset else decorOffset) + column
+        val oldId = blockIds[index]
+        val newId = Registries.BLOCK.getRawId(newState.block)
+        if (oldId == newId) return
+        blockIds[index] = newId
+
+        val counts = typeCounts
+        if (counts == null) {
+            changedWhilePending = true
+            return
+        }
+
+        val oldMask = if (isBase) table.baseMask(oldId) else table.decorMask(oldId)
+        val newMask = if (isBase) table.baseMask(newId) else table.decorMask(newId)
+        if (oldMask == newMask) return
+
+        adjust(counts, oldMask, -1)
+        adjust(counts, newMask, 1)
+        if (trackedMask != 0) {
+            if (oldMask and trackedMask != 0) trackedCount--
+            if (newMask and trackedMask != 0) trackedCount++
+        }
+        HabitatTracker.onCounterChanged(world, this)
+    }
+
+    override fun onChunkUnloaded(world: ServerWorld, chunkPos: ChunkPos) {
+        HabitatTracker.invalidate(worldPos)
+    }
+
+    private fun adjust(counts: IntArray, mask: Int, delta: Int) {
+        var bits = mask
+        while (bits != 0) {
+            counts[Integer.numberOfTrailingZeros(bits)] += delta
+            bits = bits and (bits - 1)
+        }
+    }
+
+    companion object {
+        /** Per-type favourable counts for a footprint; pure, so it can run on a worker thread. */
+        fun countTypes(table: HabitatMaskTable, blockIds: IntArray, baseOffset: Int, decorOffset: Int, columns: Int): IntArray {
+            val counts = IntArray(HabitatMaskTable.TYPES.size)
+            for (i in 0 until columns) {
+                var bits = table.baseMask(blockIds[baseOffset + i])
+                while (bits != 0) {
+                    counts[Integer.numberOfTrailingZeros(bits)]++
+                    bits = bits and (bits - 1)
+                }
+                bits = table.decorMask(blockIds[decorOffset + i])
+                while (bits != 0) {
+                    counts[Integer.numberOfTrailingZeros(bits)]++
+                    bits = bits and (bits - 1)
+                }
+            }
+            return counts
+        }
+
+        fun countTypes(table: HabitatMaskTable, snapshot: HabitatSnapshot, baseLayer: Int, decorLayer: Int): IntArray =
+            countTypes(table, snapshot.copyBlockIds(), snapshot.layerStart(baseLayer), snapshot.layerStart(decorLayer), snapshot.width * snapshot.width)
+    }
+}
+
+/**
+ * Owns the [HabitatCounter] of every pasture whose habitat has been scanned. Counters stay registered with
+ * [BlockChangeDispatcher] until the pasture unloads or one of the footprint's chunks unloads.
+ * Server thread only.
+ */
+object HabitatTracker {
+
+    private val counters = HashMap<WorldBlockPos, HabitatCounter>()
+
+    fun counterFor(worldPos: WorldBlockPos): HabitatCounter? = counters[worldPos]
+
+    /** Registers a pending counter for the snapshot; finish it with [complete] once the counts are in. */
+    fun begin(world: ServerWorld, worldPos: WorldBlockPos, snapshot: HabitatSnapshot, baseLayer: Int, decorLayer: Int): HabitatCounter {
+        invalidate(worldPos)
+        val counter = HabitatCounter(worldPos, snapshot, BreedingManager.habitatMasks, baseLayer, decorLayer)
+        val center = snapshot.center
+        counter.registration = BlockChangeDispatcher.register(
+            world.registryKey,
+            center.x - snapshot.radius, center.z - snapshot.radius,
+            center.x + snapshot.radius, center.z + snapshot.radius,
+            counter
+        )
+        counters[worldPos] = counter
+        return counter
+    }
+
+    /** @return false if the counter was invalidated while its counts were being computed. */
+    fun complete(counter: HabitatCounter, countsFromSnapshot: IntArray): Boolean {
+        if (counters[counter.worldPos] !== counter) return false
+        counter.complete(countsFromSnapshot)
+        return true
+    }
+
+    fun invalidate(worldPos: WorldBlockPos) {
+        val counter = counters.remove(worldPos) ?: return
+        counter.registration?.remove()
+        counter.registration = null
+    }
+
+    fun clear() {
+        counters.values.forEach { it.registration?.remove() }
+        counters.clear()
+    }
+
+    internal fun onCounterChanged(world: ServerWorld, counter: HabitatCounter) {
+        BreedingManager.onHabitatChanged(world, counter)
+    }
+}
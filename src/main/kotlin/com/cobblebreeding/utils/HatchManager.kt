@@ -2,14 +2,13 @@ package com.cobblebreeding.utils
 
 import com.cobblebreeding.CobblemonBreeding
 import com.cobblemon.mod.common.Cobblemon
-import com.cobblemon.mod.common.api.pokemon.Natures
 import com.cobblemon.mod.common.api.pokemon.PokemonProperties
 import com.cobblemon.mod.common.api.pokemon.PokemonSpecies
-import com.cobblemon.mod.common.api.pokemon.stats.Stats
 import com.cobblemon.mod.common.api.storage.party.PartyPosition
 import com.cobblemon.mod.common.battles.BattleRegistry
 import com.cobblemon.mod.common.pokemon.Pokemon
 import com.cobblemon.mod.common.pokemon.OriginalTrainerType
+import com.cobblemon.mod.common.pokemon.Species
 import net.minecraft.particle.ParticleTypes
 import net.minecraft.server.MinecraftServer
 import net.minecraft.server.network.ServerPlayerEntity
@@ -17,6 +16,7 @@ import net.minecraft.server.world.ServerWorld
 import net.minecraft.util.Identifier
 import net.minecraft.sound.SoundCategory
 import net.minecraft.sound.SoundEvents
+import net.minecraft.stat.Stat
 import net.minecraft.stat.StatHandler
 import net.minecraft.stat.Stats as MCStats // Alias Minecraft Stats
 import net.minecraft.text.Text
@@ -26,11 +26,117 @@ import java.util.*
 object HatchManager {
 
     private val playerWalkStats = mutableMapOf<UUID, Long>()
-    private val readyToHatchMap = mutableMapOf<UUID, Queue<Int>>()
+    /** Per player, a bitmask of party slots whose egg is ready and waiting to hatch. */
+    private val pendingHatchSlots = mutableMapOf<UUID, Int>()
+    private val hatchRotation = ArrayDeque<UUID>()
     private const val HATCH_STEP_DIVISOR = BreedingManager.STEPS_PER_EGG_CYCLE
 
+    /** A carrier's [EggSlots] plus the Pokémon and decoded data behind each slot, for writing steps back. */
+    private class PartyEggs {
+        val slots = EggSlots()
+        val pokemon = arrayOfNulls<Pokemon>(EggSlots.PARTY_SIZE)
+        val eggData = arrayOfNulls<EggData>(EggSlots.PARTY_SIZE)
+        var valid = false
+    }
+
+    private val partyEggs = mutableMapOf<UUID, PartyEggs>()
+
+    /** Target species ID -> `PokemonProperties` for its base form at level 1. Cleared on datapack reload. */
+    private val baseFormTemplates = BaseFormCache<Species, PokemonProperties>(
+        lookup = { speciesId -> PokemonSpecies.getByName(speciesId.lowercase(Locale.ROOT)) },
+        preEvolution = { species -> species.preEvolution?.species },
+        buildTemplate = { baseSpecies -> PokemonProperties.parse("${baseSpecies.showdownId()} level=1") }
+    )
+
+    internal fun clearSpeciesCache() {
+        baseFormTemplates.clear()
+    }
+
+    /** Walk, sprint, crouch, swim, fly and elytra distance, resolved once instead of on every poll. */
+    private val distanceStats: Array<Stat<Identifier>> by lazy {
+        arrayOf(
+            MCStats.CUSTOM.getOrCreateStat(MCStats.WALK_ONE_CM),
+            MCStats.CUSTOM.getOrCreateStat(MCStats.SPRINT_ONE_CM),
+            MCStats.CUSTOM.getOrCreateStat(MCStats.CROUCH_ONE_CM),
+            MCStats.CUSTOM.getOrCreateStat(MCStats.SWIM_ONE_CM),
+            MCStats.CUSTOM.getOrCreateStat(MCStats.FLY_ONE_CM),
+            MCStats.CUSTOM.getOrCreateStat(MCStats.AVIATE_ONE_CM)
+        )
+    }
+
+    /**
+     * Called by [EggCarrierRegistry]. Distance is measured from the moment a player starts carrying an egg, so
+     * the baseline is dropped whenever carrier status changes and re-taken on the next poll.
+     */
+    internal fun onCarrierChanged(playerId: UUID, carrying: Boolean) {
+        playerWalkStats.remove(playerId)
+        if (!carrying) {
+            partyEggs.remove(playerId)?.let { flush(it, it.slots.dirtyMask) }
+        }
+    }
+
+    /**
+     * Called by [EggCarrierRegistry] whenever the player's party changes. Pending steps are written back to the
+     * Pokémon they belong to (slots may have moved), and the slot cache is rebuilt on the next poll.
+     */
+    internal fun onPartyChanged(playerId: UUID) {
+        val eggs = partyEggs[playerId] ?: return
+        flush(eggs, eggs.slots.dirtyMask)
+        eggs.valid = false
+    }
+
+    /** Writes every carrier's pending steps back to egg NBT. Runs on the flush interval and on server stop. */
+    internal fun flushEggSteps() {
+        partyEggs.values.forEach { flush(it, it.slots.dirtyMask) }
+    }
+
+    private fun flush(eggs: PartyEggs, mask: Int) {
+        var bits = mask and eggs.slots.eggMask
+        while (bits != 0) {
+            val slot = Integer.numberOfTrailingZeros(bits)
+            bits = bits and (bits - 1)
+            val pokemon = eggs.pokemon[slot] ?: continue
+            val data = eggs.eggData[slot] ?: continue
+            EggCodec.setCurrentSteps(pokemon, data, eggs.slots.currentSteps(slot))
+        }
+        eggs.slots.markClean(mask)
+    }
+
+    private fun partyEggsFor(player: ServerPlayerEntity): PartyEggs {
+        val eggs = partyEggs.getOrPut(player.uuid) { PartyEggs() }
+        if (eggs.valid) return eggs
+
+        eggs.slots.clear()
+        eggs.pokemon.fill(null)
+        eggs.eggData.fill(null)
+        val party = Cobblemon.storage.getParty(player)
+        for (slotIndex in 0 until party.size().coerceAtMost(EggSlots.PARTY_SIZE)) {
+            val pokemon = party[PartyPosition(slotIndex)] ?: continue
+            val data = EggCodec.get(pokemon) ?: continue
+            eggs.pokemon[slotIndex] = pokemon
+            eggs.eggData[slotIndex] = data
+            eggs.slots.set(slotIndex, data.currentSteps, data.totalSteps)
+        }
+        eggs.valid = true
+
+        // Slots may have moved, so the pending set is rebuilt from the eggs that are ready now.
+        var readyMask = 0
+        for (slotIndex in 0 until EggSlots.PARTY_SIZE) {
+            if (eggs.slots.isReady(slotIndex)) readyMask = readyMask or (1 shl slotIndex)
+        }
+        if (readyMask == 0) {
+            pendingHatchSlots.remove(player.uuid)?.let { hatchRotation.remove(player.uuid) }
+        } else {
+            pendingHatchSlots.remove(player.uuid)?.let { hatchRotation.remove(player.uuid) }
+            queueHatch(player.uuid, readyMask)
+        }
+        return eggs
+    }
+
     internal fun tickHatchingSteps(server: MinecraftServer) {
-        server.playerManager.playerList.forEach { player ->
+        EggCarrierRegistry.carriers().forEach { playerId ->
+            val player = server.playerManager.getPlayer(playerId) ?: return@forEach
+            val eggs = partyEggsFor(player)
             val currentTotalCm = getTotalDistanceCm(player.statHandler)
             val previousTotalCm = playerWalkStats.getOrDefault(player.uuid, currentTotalCm)
             val cmMoved = currentTotalCm - previousTotalCm
@@ -38,31 +144,11 @@ object HatchManager {
             if (cmMoved >= HATCH_STEP_DIVISOR) {
                 val stepsToCredit = (cmMoved / HATCH_STEP_DIVISOR).toInt()
                 if (stepsToCredit > 0) {
-                    //println("${CobblemonBreeding.PREFIX} Player ${player.gameProfile.name} moved ${cmMoved}cm, crediting $stepsToCredit steps.") // Optional debug
-                    val party = Cobblemon.storage.getParty(player) ?: return@forEach
-                    for (slotIndex in 0 until party.size()) {
-                        val pokemon = party[PartyPosition(slotIndex)]
-                        if (pokemon != null && pokemon.persistentData.getBoolean(BreedingManager.EGG_NBT_KEY)) {
-                            val totalSteps = pokemon.persistentData.getInt(BreedingManager.TOTAL_HATCH_STEPS_KEY)
-                            if (totalSteps > 0) {
-                                val currentSteps = pokemon.persistentData.getInt(BreedingManager.CURRENT_HATCH_STEPS_KEY)
-                                if (currentSteps < totalSteps) {
-                                    val newSteps = (currentSteps + stepsToCredit).coerceAtMost(totalSteps)
-                                    pokemon.persistentData.putInt(BreedingManager.CURRENT_HATCH_STEPS_KEY, newSteps)
-
-                                    //val stepsRemaining = totalSteps - newSteps
-                                    //println("${CobblemonBreeding.PREFIX}   Egg slot $slotIndex: $newSteps / $totalSteps steps ($stepsRemaining remaining).") // Optional debug
-
-                                    if (newSteps >= totalSteps) {
-                                        val queue = readyToHatchMap.computeIfAbsent(player.uuid) { LinkedList() }
-                                        if (!queue.contains(slotIndex)) {
-                                            //println("${CobblemonBreeding.PREFIX}   Egg slot $slotIndex added to hatch queue for ${player.gameProfile.name}.") // Optional debug
-                                            queue.offer(slotIndex)
-                                        }
-                                    }
-                                }
-                            }
-                        }
+                    val newlyReady = eggs.slots.credit(stepsToCredit)
+                    if (newlyReady != 0) {
+                        // Ready eggs are written back right away so the hatch queue sees their final step count.
+                        flush(eggs, newlyReady)
+                        queueHatch(player.uuid, newlyReady)
                     }
                 }
             }
@@ -70,109 +156,104 @@ object HatchManager {
         }
     }
 
+    internal fun onPlayerDisconnect(playerId: UUID) {
+        playerWalkStats.remove(playerId)
+        pendingHatchSlots.remove(playerId)?.let { hatchRotation.remove(playerId) }
+        partyEggs.remove(playerId)?.let { flush(it, it.slots.dirtyMask) }
+    }
+
     private fun getTotalDistanceCm(statHandler: StatHandler): Long {
         var total: Long = 0
-        total += statHandler.getStat(MCStats.CUSTOM.getOrCreateStat(MCStats.WALK_ONE_CM))
-        total += statHandler.getStat(MCStats.CUSTOM.getOrCreateStat(MCStats.SPRINT_ONE_CM))
-        total += statHandler.getStat(MCStats.CUSTOM.getOrCreateStat(MCStats.CROUCH_ONE_CM))
-        total += statHandler.getStat(MCStats.CUSTOM.getOrCreateStat(MCStats.SWIM_ONE_CM))
-        total += statHandler.getStat(MCStats.CUSTOM.getOrCreateStat(MCStats.FLY_ONE_CM))
-        total += statHandler.getStat(MCStats.CUSTOM.getOrCreateStat(MCStats.AVIATE_ONE_CM))
+        for (stat in distanceStats) {
+            total += statHandler.getStat(stat)
+        }
         return total
     }
 
+    /**
+     * Hatches ready eggs, at most [BreedingConfig.Settings.hatchesPerTick] per call, taking one egg per player
+     * in turn so nobody waits behind another player's batch. Players in battle keep their place and are
+     * skipped until the battle ends. Runs every tick.
+     */
     internal fun processHatchQueue(server: MinecraftServer) {
-        val iterator = readyToHatchMap.entries.iterator()
-        while(iterator.hasNext()){
-            val entry = iterator.next()
-            val playerUUID = entry.key
-            val queue = entry.value
-
-            if (queue.isEmpty()) {
-                iterator.remove()
-                continue
-            }
-
-            val player = server.playerManager.getPlayer(playerUUID)
-            if(player != null && !player.isRemoved && BattleRegistry.getBattleByParticipatingPlayer(player) == null) {
-                val slotIndex = queue.poll()
-                val party = Cobblemon.storage.getParty(player) ?: continue
-                val eggPokemon = party[PartyPosition(slotIndex)]
-
-                if (eggPokemon != null &&
-                    eggPokemon.persistentData.getBoolean(BreedingManager.EGG_NBT_KEY) &&
-                    eggPokemon.persistentData.getInt(BreedingManager.CURRENT_HATCH_STEPS_KEY) >= eggPokemon.persistentData.getInt(BreedingManager.TOTAL_HATCH_STEPS_KEY)) {
+        var budget = BreedingConfig.settings.hatchesPerTick
+        while (budget > 0 && hatchRotation.isNotEmpty()) {
+            var hatchedThisPass = false
+            for (i in 0 until hatchRotation.size) {
+                val playerId = hatchRotation.removeFirst()
+                val pending = pendingHatchSlots.getOrDefault(playerId, 0)
+                val player = server.playerManager.getPlayer(playerId)
+                if (pending == 0 || player == null || player.isRemoved) {
+                    pendingHatchSlots.remove(playerId)
+                    continue
+                }
+                if (BattleRegistry.getBattleByParticipatingPlayer(player) != null) {
+                    hatchRotation.addLast(playerId)
+                    continue
+                }
 
-                    //println("${CobblemonBreeding.PREFIX} Player ${player.gameProfile.name}: Processing hatch for egg in slot $slotIndex.") // Optional debug
-                    hatchEgg(player, slotIndex, eggPokemon)
+                val slotIndex = Integer.numberOfTrailingZeros(pending)
+                val remaining = pending and (pending - 1)
+                if (remaining == 0) {
+                    pendingHatchSlots.remove(playerId)
+                } else {
+                    pendingHatchSlots[playerId] = remaining
+                    hatchRotation.addLast(playerId)
                 }
 
-                if (queue.isEmpty()) {
-                    iterator.remove()
+                val eggPokemon = Cobblemon.storage.getParty(player)[PartyPosition(slotIndex)]
+                if (eggPokemon != null && EggCodec.get(eggPokemon)?.isReadyToHatch == true) {
+                    hatchEgg(player, slotIndex, eggPokemon)
+                    hatchedThisPass = true
+                    if (--budget == 0) break
                 }
-            } else if (player == null || player.isRemoved) {
-                iterator.remove() // Clean up queue if player logs out
             }
+            if (!hatchedThisPass) break
+        }
+    }
+
+    private fun queueHatch(playerId: UUID, slotMask: Int) {
+        val pending = pendingHatchSlots.getOrDefault(playerId, 0)
+        if (pending == 0) {
+            hatchRotation.addLast(playerId)
         }
+        pendingHatchSlots[playerId] = pending or slotMask
     }
 
     fun hatchEgg(player: ServerPlayerEntity, slotIndex: Int, eggPokemon: Pokemon) {
-        val originalTargetSpeciesIdString = eggPokemon.persistentData.getString(BreedingManager.TARGET_SPECIES_NBT_KEY)
+        val eggData = EggCodec.get(eggPokemon) ?: run {
+            Cobblemon.LOGGER.error("Pokemon ${eggPokemon.uuid} for player ${player.uuid} has no egg data. Cannot hatch.")
+            return
+        }
+        val originalTargetSpeciesIdString = eggData.targetSpecies
         if (originalTargetSpeciesIdString.isBlank()) {
             Cobblemon.LOGGER.error("Egg ${eggPokemon.uuid} for player ${player.uuid} is missing target species NBT! Cannot determine base evolution.")
             return
         }
 
-        // Resolve the initial species using its name (likely showdownId)
-        val initialSpeciesNonNull: com.cobblemon.mod.common.pokemon.Species =
-            PokemonSpecies.getByName(originalTargetSpeciesIdString.lowercase(Locale.ROOT))
-                ?: run { // Handle null case: if getByName returns null
-                    Cobblemon.LOGGER.error("Could not resolve initial species '$originalTargetSpeciesIdString' for egg ${eggPokemon.uuid}. Cannot find base evolution.")
-                    player.sendMessage(Text.literal("Error during hatching process (initial species lookup failed). Please report this.").formatted(Formatting.RED))
-                    return // Exit the function
-                }
-
-        // Now initialSpeciesNonNull is guaranteed to be non-null
-        var baseSpeciesCandidate: com.cobblemon.mod.common.pokemon.Species = initialSpeciesNonNull
-
-        // Traverse down to the base evolution
-        // If preEvoData.species is directly a Species object:
-        while (baseSpeciesCandidate.preEvolution != null) {
-            val previousSpeciesObject: com.cobblemon.mod.common.pokemon.Species = baseSpeciesCandidate.preEvolution!!.species
-            baseSpeciesCandidate = previousSpeciesObject
+        val props = baseFormTemplates.get(originalTargetSpeciesIdString) ?: run {
+            Cobblemon.LOGGER.error("Could not resolve species '$originalTargetSpeciesIdString' for egg ${eggPokemon.uuid}. Cannot find base evolution.")
+            player.sendMessage(Text.literal("Error during hatching process (initial species lookup failed). Please report this.").formatted(Formatting.RED))
+            return
         }
-        // baseSpeciesCandidate now holds the true base form.
-        val baseSpecies: com.cobblemon.mod.common.pokemon.Species = baseSpeciesCandidate
-        val finalTargetSpeciesIdForProps = baseSpecies.showdownId()
-
-        Cobblemon.LOGGER.info("Hatching egg: Original target was '$originalTargetSpeciesIdString', final base species for hatching is '${finalTargetSpeciesIdForProps}'.")
 
-        val props = PokemonProperties.parse("$finalTargetSpeciesIdForProps level=1")
         val hatchedPokemon: Pokemon = try {
             props.create()
         } catch (e: Exception) {
-            Cobblemon.LOGGER.error("Exception creating Pokemon from properties: $props for egg ${eggPokemon.uuid} (original target: $originalTargetSpeciesIdString, base target: $finalTargetSpeciesIdForProps)", e)
+            Cobblemon.LOGGER.error("Exception creating Pokemon from properties: $props for egg ${eggPokemon.uuid} (original target: $originalTargetSpeciesIdString, base target: ${props.species})", e)
             player.sendMessage(Text.literal("Error during hatching process. Please report this.").formatted(Formatting.RED))
             return
         }
 
         // Apply calculated IVs
-        hatchedPokemon.ivs.set(Stats.HP, eggPokemon.persistentData.getInt(BreedingManager.CALCULATED_IV_HP_KEY))
-        hatchedPokemon.ivs.set(Stats.ATTACK, eggPokemon.persistentData.getInt(BreedingManager.CALCULATED_IV_ATK_KEY))
-        hatchedPokemon.ivs.set(Stats.DEFENCE, eggPokemon.persistentData.getInt(BreedingManager.CALCULATED_IV_DEF_KEY))
-        hatchedPokemon.ivs.set(Stats.SPECIAL_ATTACK, eggPokemon.persistentData.getInt(BreedingManager.CALCULATED_IV_SPA_KEY))
-        hatchedPokemon.ivs.set(Stats.SPECIAL_DEFENCE, eggPokemon.persistentData.getInt(BreedingManager.CALCULATED_IV_SPD_KEY))
-        hatchedPokemon.ivs.set(Stats.SPEED, eggPokemon.persistentData.getInt(BreedingManager.CALCULATED_IV_SPE_KEY))
+        EggCodec.IV_STATS.forEachIndexed { index, stat -> hatchedPokemon.ivs.set(stat, eggData.ivs[index]) }
 
         // Apply calculated Nature
-        val natureNamePath = eggPokemon.persistentData.getString(BreedingManager.CALCULATED_NATURE_KEY)
-        if (natureNamePath.isNotBlank()) {
-            val natureNameToLookup = natureNamePath.substringAfterLast(':')
-            Natures.getNature(natureNameToLookup)?.let {
-                hatchedPokemon.nature = it
-            } ?: Cobblemon.LOGGER.warn("Failed to apply nature '$natureNamePath' (lookup: '$natureNameToLookup') to hatched Pokemon ${hatchedPokemon.uuid}. It will have a default nature.")
+        val nature = eggData.nature()
+        if (nature != null) {
+            hatchedPokemon.nature = nature
         } else {
-            Cobblemon.LOGGER.warn("CALCULATED_NATURE_KEY was blank for egg ${eggPokemon.uuid}, Pokemon will have a default nature.")
+            Cobblemon.LOGGER.warn("Egg ${eggPokemon.uuid} has no valid nature (index ${eggData.natureIndex}), Pokemon will have a default nature.")
         }
 
         // Original Trainer
@@ -209,18 +290,9 @@ object HatchManager {
 
         hatchedPokemon.nickname = null
 
-        // Clean up egg-specific NBT data
-        hatchedPokemon.persistentData.remove(BreedingManager.EGG_NBT_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.TARGET_SPECIES_NBT_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.TOTAL_HATCH_STEPS_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CURRENT_HATCH_STEPS_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CALCULATED_IV_HP_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CALCULATED_IV_ATK_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CALCULATED_IV_DEF_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CALCULATED_IV_SPA_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CALCULATED_IV_SPD_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CALCULATED_IV_SPE_KEY)
-        hatchedPokemon.persistentData.remove(BreedingManager.CALCULATED_NATURE_KEY)
+        // Clean up egg-specific data
+        hatchedPokemon.persistentData.remove(EggCodec.EGG_DATA_KEY)
+        EggCodec.forget(eggPokemon)
 
         val party = Cobblemon.storage.getParty(player) ?: return
         party[PartyPosition(slotIndex)] = hatchedPokemon
@@ -230,7 +302,7 @@ object HatchManager {
 
         player.sendMessage(Text.literal("Oh?").formatted(Formatting.YELLOW))
         world.playSound(null, player.blockPos, SoundEvents.ENTITY_CHICKEN_EGG, SoundCategory.PLAYERS, 1.0f, 1.0f)
-        world.spawnParticles(ParticleTypes.HAPPY_VILLAGER, pos.x, pos.y + player.standingEyeHeight * 0.7, pos.z, 20, 0.5, 0.5, 0.5, 0.1)
+        BreedingEffects.spawn(world, ParticleTypes.HAPPY_VILLAGER, pos.x, pos.y + player.standingEyeHeight * 0.7, pos.z, 20, 0.5, 0.5, 0.5, 0.1)
         val message = Text.translatable("cobblemonbreeding.egg_hatched", hatchedPokemon.species.translatedName).formatted(Formatting.GREEN)
         player.sendMessage(message)
     }
@@ -0,0 +1,122 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.WorldBlockPos
+import com.cobblemon.mod.common.block.entity.PokemonPastureBlockEntity
+import com.cobblemon.mod.common.entity.pokemon.PokemonEntity
+import it.unimi.dsi.fastutil.HashCommon
+import net.minecraft.registry.RegistryKey
+import net.minecraft.server.MinecraftServer
+import net.minecraft.server.world.ServerWorld
+import net.minecraft.util.math.MathHelper
+import net.minecraft.world.World
+import kotlin.math.abs
+import kotlin.math.max
+
+/**
+ * Keeps pastured Pokémon inside their pasture's roam area.
+ *
+ * Every tracked pasture is swept once per [SWEEP_INTERVAL_TICKS], with pastures spread over the interval by
+ * position hash. A sweep checks each loaded tethered Pokémon's horizontal distance to the pasture center against
+ * a precomputed radius², and Pokémon that are out of bounds are sent back to the center. No goal owns the
+ * movement, so wandering may take the navigation over between sweeps; the return is re-issued on every sweep
+ * until the Pokémon is back inside. Entities come from [PastureEntityIndex], falling back to the tethered
+ * Pokémon's own entity when the index misses. Server thread only.
+ */
+object LeashSweeper {
+
+    const val SWEEP_INTERVAL_TICKS = 20
+    private const val RETURN_SPEED = 1.0
+    /** Distance inside the roam edge at which a Pokémon is already turned around. */
+    private const val BOUNDARY_BUFFER = 2.0
+
+    private class LeashedPasture(val worldKey: RegistryKey<World>, val worldPos: WorldBlockPos) {
+        var hasArea = false
+        var centerX = 0.0
+        var centerY = 0.0
+        var centerZ = 0.0
+        var radiusSq = 0.0
+    }
+
+    private val phases = Array(SWEEP_INTERVAL_TICKS) { HashMap<WorldBlockPos, LeashedPasture>() }
+
+    /** Starts sweeping the pasture, or makes it recompute its roam area after its tethers changed. */
+    fun track(worldKey: RegistryKey<World>, worldPos: WorldBlockPos) {
+        phaseFor(worldPos)[worldPos] = LeashedPasture(worldKey, worldPos)
+    }
+
+    fun forget(worldPos: WorldBlockPos) {
+        phaseFor(worldPos).remove(worldPos)
+    }
+
+    fun clear() {
+        phases.forEach { it.clear() }
+    }
+
+    fun trackedCount(): Int = phases.sumOf { it.size }
+
+    private fun phaseFor(worldPos: WorldBlockPos): HashMap<WorldBlockPos, LeashedPasture> =
+        phases[Math.floorMod(HashCommon.mix(worldPos.pos.asLong()), SWEEP_INTERVAL_TICKS.toLong()).toInt()]
+
+    internal fun tick(server: MinecraftServer) {
+        val phase = phases[server.ticks % SWEEP_INTERVAL_TICKS]
+        if (phase.isEmpty()) return
+
+        val iterator = phase.values.iterator()
+        while (iterator.hasNext()) {
+            val pasture = iterator.next()
+            val world = server.getWorld(pasture.worldKey)
+            if (world == null) {
+                iterator.remove()
+                continue
+            }
+            val pos = pasture.worldPos.pos
+            if (!world.isChunkLoaded(pos)) continue
+            val blockEntity = world.getBlockEntity(pos) as? PokemonPastureBlockEntity
+            if (blockEntity == null) {
+                iterator.remove()
+                continue
+            }
+
+            val tethers = blockEntity.tetheredPokemon
+            if (tethers.isEmpty()) continue
+            if (!pasture.hasArea) computeArea(pasture, tethers[0])
+
+            for (i in tethers.indices) {
+                val entity = entityFor(world, tethers[i]) ?: continue
+                val dx = entity.x - pasture.centerX
+                val dz = entity.z - pasture.centerZ
+                if (dx * dx + dz * dz <= pasture.radiusSq) continue
+                // A breeding parent walking to its meeting point is left alone.
+                if ((entity as? WalkGoalHolder)?.breedingWalkGoal?.isWalking == true) continue
+                val navigation = entity.navigation
+                val target = navigation.targetPos
+                if (!navigation.isIdle && target != null &&
+                    target.x == MathHelper.floor(pasture.centerX) && target.z == MathHelper.floor(pasture.centerZ)) continue
+                navigation.startMovingTo(pasture.centerX, pasture.centerY, pasture.centerZ, RETURN_SPEED)
+            }
+        }
+    }
+
+    private fun entityFor(world: ServerWorld, tethering: PokemonPastureBlockEntity.Tethering): PokemonEntity? {
+        PastureEntityIndex.get(tethering.pokemonId)?.let { if (it.world === world) return it }
+        val entity = tethering.getPokemon()?.entity ?: return null
+        if (entity.world !== world || entity.isRemoved) return null
+        PastureEntityIndex.track(entity)
+        return entity
+    }
+
+    private fun computeArea(pasture: LeashedPasture, tethering: PokemonPastureBlockEntity.Tethering) {
+        val minPos = tethering.minRoamPos
+        val maxPos = tethering.maxRoamPos
+        val centerX = (minPos.x + maxPos.x) / 2
+        val centerZ = (minPos.z + maxPos.z) / 2
+        val rawRadius = max(abs(maxPos.x - centerX), abs(maxPos.z - centerZ)).toDouble()
+        val effectiveRadius = max(0.0, rawRadius - BOUNDARY_BUFFER)
+
+        pasture.centerX = centerX + 0.5
+        pasture.centerY = (minPos.y + maxPos.y) / 2 + 0.5
+        pasture.centerZ = centerZ + 0.5
+        pasture.radiusSq = effectiveRadius * effectiveRadius
+        pasture.hasArea = true
+    }
+}
@@ -0,0 +1,77 @@
+package com.cobblebreeding.utils
+
+import kotlin.random.Random
+
+/**
+ * IV and nature inheritance for an egg, on primitive stat arrays.
+ *
+ * Stats are indexed in [EggCodec.IV_STATS] order and held items are passed in already resolved (power item stat
+ * index, Destiny Knot, Everstone), so there are no Cobblemon types here and the rules can be benchmarked headless.
+ */
+object OffspringRules {
+
+    const val STAT_COUNT = 6
+    const val NO_STAT = -1
+
+    const val NATURE_RANDOM = 0
+    const val NATURE_FROM_MALE = 1
+    const val NATURE_FROM_FEMALE = 2
+
+    private const val IV_BOUND = 32
+
+    /**
+     * Fills [out] with the offspring's IVs. Power items pass their stat on first (the female's wins if both hold the
+     * same one), then random stats are inherited from a random parent until 3 (5 with a Destiny Knot) are
+     * inherited in total. The remaining stats are rolled.
+     * @return [out]
+     */
+    fun inheritIvs(
+        maleIvs: IntArray,
+        femaleIvs: IntArray,
+        malePowerStat: Int,
+        femalePowerStat: Int,
+        destinyKnot: Boolean,
+        random: Random,
+        out: IntArray
+    ): IntArray {
+        val toInherit = if (destinyKnot) 5 else 3
+        var inheritedMask = 0
+        var inherited = 0
+
+        if (malePowerStat != NO_STAT && malePowerStat != femalePowerStat) {
+            out[malePowerStat] = maleIvs[malePowerStat]
+            inheritedMask = inheritedMask or (1 shl malePowerStat)
+            inherited++
+        }
+        if (femalePowerStat != NO_STAT) {
+            out[femalePowerStat] = femaleIvs[femalePowerStat]
+            inheritedMask = inheritedMask or (1 shl femalePowerStat)
+            inherited++
+        }
+
+        while (inherited < toInherit) {
+            var pick = random.nextInt(STAT_COUNT - inherited)
+            var stat = 0
+            while (true) {
+                if (inheritedMask and (1 shl stat) == 0 && pick-- == 0) break
+                stat++
+            }
+            out[stat] = if (random.nextBoolean()) maleIvs[stat] else femaleIvs[stat]
+            inheritedMask = inheritedMask or (1 shl stat)
+            inherited++
+        }
+
+        for (stat in 0 until STAT_COUNT) {
+            if (inheritedMask and (1 shl stat) == 0) out[stat] = random.nextInt(IV_BOUND)
+        }
+        return out
+    }
+
+    /** Which parent passes its nature on: an Everstone holder, a random one of two holders, or neither. */
+    fun natureSource(maleEverstone: Boolean, femaleEverstone: Boolean, random: Random): Int = when {
+        maleEverstone && femaleEverstone -> if (random.nextBoolean()) NATURE_FROM_MALE else NATURE_FROM_FEMALE
+        maleEverstone -> NATURE_FROM_MALE
+        femaleEverstone -> NATURE_FROM_FEMALE
+        else -> NATURE_RANDOM
+    }
+}
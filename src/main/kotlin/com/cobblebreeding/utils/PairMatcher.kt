@@ -0,0 +1,132 @@
+package com.cobblebreeding.utils
+
+/**
+ * Picks the breeding pair in a pasture from one entry per tethered Pokémon.
+ *
+ * Rules, in order:
+ * - With exactly one Ditto, the Ditto pairs with the first genderless Pokémon, or failing that the first gendered one.
+ * - Otherwise the first species (by first appearance) that has both a male and a female pairs its first male
+ *   with its first female.
+ *
+ * Entries are written into reusable primitive arrays and matched in a single pass, so a reused matcher does not
+ * allocate. Species are compared with `==` and otherwise opaque, which keeps this class free of Cobblemon types.
+ * Not thread safe.
+ */
+class PairMatcher(initialCapacity: Int = 8) {
+
+    private var kinds = IntArray(initialCapacity)
+    private var species = arrayOfNulls<Any>(initialCapacity)
+    private var slotSpecies = arrayOfNulls<Any>(initialCapacity)
+    private var slotMale = IntArray(initialCapacity)
+    private var slotFemale = IntArray(initialCapacity)
+
+    var size = 0
+        private set
+
+    /** Clears the matcher for [expectedSize] entries. */
+    fun reset(expectedSize: Int) {
+        if (expectedSize > kinds.size) {
+            val capacity = Integer.highestOneBit(expectedSize - 1) shl 1
+            kinds = IntArray(capacity)
+            species = arrayOfNulls(capacity)
+            slotSpecies = arrayOfNulls(capacity)
+            slotMale = IntArray(capacity)
+            slotFemale = IntArray(capacity)
+        } else {
+            species.fill(null, 0, size)
+        }
+        size = 0
+    }
+
+    /** Adds the next entry; its index in a match result is the number of entries added before it. */
+    fun add(kind: Int, speciesKey: Any?) {
+        if (size == kinds.size) grow()
+        kinds[size] = kind
+        species[size] = speciesKey
+        size++
+    }
+
+    /** @return the matched pair, encoded for [first], [second] and [isDittoPair], or [NO_PAIR]. */
+    fun match(): Long {
+        var dittoCount = 0
+        var firstDitto = -1
+        var firstGenderless = -1
+        var firstGendered = -1
+        var slots = 0
+
+        for (i in 0 until size) {
+            when (val kind = kinds[i]) {
+                DITTO -> {
+                    if (dittoCount++ == 0) firstDitto = i
+                }
+                GENDERLESS -> {
+                    if (firstGenderless < 0) firstGenderless = i
+                }
+                MALE, FEMALE -> {
+                    if (firstGendered < 0) firstGendered = i
+                    val key = species[i]
+                    var slot = 0
+                    while (slot < slots && slotSpecies[slot] != key) slot++
+                    if (slot == slots) {
+                        slotSpecies[slot] = key
+                        slotMale[slot] = -1
+                        slotFemale[slot] = -1
+                        slots++
+                    }
+                    if (kind == MALE) {
+                        if (slotMale[slot] < 0) slotMale[slot] = i
+                    } else if (slotFemale[slot] < 0) {
+                        slotFemale[slot] = i
+                    }
+                }
+            }
+        }
+
+        var result = NO_PAIR
+        if (dittoCount == 1) {
+            val partner = if (firstGenderless >= 0) firstGenderless else firstGendered
+            if (partner >= 0) result = encode(firstDitto, partner, true)
+        }
+        if (result == NO_PAIR) {
+            for (slot in 0 until slots) {
+                if (slotMale[slot] >= 0 && slotFemale[slot] >= 0) {
+                    result = encode(slotMale[slot], slotFemale[slot], false)
+                    break
+                }
+            }
+        }
+        slotSpecies.fill(null, 0, slots)
+        return result
+    }
+
+    private fun grow() {
+        val capacity = kinds.size * 2
+        kinds = kinds.copyOf(capacity)
+        species = species.copyOf(capacity)
+        slotSpecies = arrayOfNulls(capacity)
+        slotMale = IntArray(capacity)
+        slotFemale = IntArray(capacity)
+    }
+
+    companion object {
+        /** Entry that never takes part in a pair, e.g. an egg or a Pokémon that failed to load. */
+        const val IGNORED = -1
+        const val DITTO = 0
+        const val GENDERLESS = 1
+        const val MALE = 2
+        const val FEMALE = 3
+
+        const val NO_PAIR = -1L
+        private const val DITTO_FLAG = 1L shl 62
+
+        /** Index of the first parent: the Ditto in a Ditto pair, the male otherwise. */
+        fun first(result: Long): Int = ((result ushr 31) and 0x7FFFFFFF).toInt()
+
+        fun second(result: Long): Int = (result and 0x7FFFFFFF).toInt()
+
+        fun isDittoPair(result: Long): Boolean = result != NO_PAIR && result and DITTO_FLAG != 0L
+
+        private fun encode(first: Int, second: Int, dittoPair: Boolean): Long =
+            (first.toLong() shl 31) or second.toLong() or (if (dittoPair) DITTO_FLAG else 0L)
+    }
+}
@@ -0,0 +1,46 @@
+package com.cobblebreeding.utils
+
+import com.cobblemon.mod.common.entity.pokemon.PokemonEntity
+import java.lang.ref.WeakReference
+import java.util.UUID
+
+/**
+ * Pokémon UUID -> live [PokemonEntity] for pastured Pokémon.
+ *
+ * Filled when a Pokémon is tethered or its entity loads, and cleared on release or entity unload. Entries only
+ * hold weak references, so a missed removal can never keep an entity alive; stale or removed entries are
+ * dropped on lookup and the caller falls back to a spatial query.
+ */
+object PastureEntityIndex {
+
+    private val entities = HashMap<UUID, WeakReference<PokemonEntity>>()
+
+    fun track(entity: PokemonEntity) {
+        entities[entity.pokemon.uuid] = WeakReference(entity)
+    }
+
+    fun untrack(pokemonId: UUID) {
+        entities.remove(pokemonId)
+    }
+
+    fun untrack(entity: PokemonEntity) {
+        val pokemonId = entity.pokemon.uuid
+        if (entities[pokemonId]?.get() === entity) {
+            entities.remove(pokemonId)
+        }
+    }
+
+    fun get(pokemonId: UUID): PokemonEntity? {
+        val reference = entities[pokemonId] ?: return null
+        val entity = reference.get()
+        if (entity == null || entity.isRemoved || entity.pokemon.uuid != pokemonId) {
+            entities.remove(pokemonId)
+            return null
+        }
+        return entity
+    }
+
+    fun clear() {
+        entities.clear()
+    }
+}
@@ -0,0 +1,191 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.CobblemonBreeding
+import com.cobblebreeding.WorldBlockPos
+import com.cobblemon.mod.common.block.entity.PokemonPastureBlockEntity
+import it.unimi.dsi.fastutil.HashCommon
+import net.minecraft.server.MinecraftServer
+
+/**
+ * Keeps the set of pastures that actually need breeding ticks.
+ *
+ * A pasture is "hot" while it is breeding or has at least two tethered Pokémon. Everything else sleeps
+ * until a tether/release on its block entity or a chunk load wakes it again, so the per-tick cost follows
+ * the number of possible breedings instead of the number of loaded pastures.
+ *
+ * Hot pastures are hashed into [BreedingConfig.Settings.breedingTickBuckets] phase buckets and only one bucket
+ * runs per server tick. Every pasture is still visited once per throttle window, but the entity queries and
+ * particle packets are spread across the window instead of all landing on the same tick.
+ *
+ * Pairs that are only counting down are parked on a [TimerWheel] until their walk phase is due. While parked
+ * they get a cheap particle pulse every [PARTICLE_PULSE_TICKS] and nothing else; a tether or release on the
+ * pasture wakes them early so a removed parent is noticed straight away. Tethers Cobblemon drops without going
+ * through the mixin are caught by the pulse, which wakes the pair instead of pulsing once a parent is gone.
+ * Pastures whose tethers hold no valid pair are parked the same way, without the pulse, and only re-checked at
+ * a low frequency.
+ */
+object PastureScheduler {
+
+    /** Returned by [BreedingManager.tickBreedingProcess] to stay in the tick buckets. */
+    const val TICK_AGAIN = 0L
+
+    /** Returned by [BreedingManager.tickBreedingProcess] to sleep until a tether/release event. */
+    const val SLEEP_UNTIL_WOKEN = Long.MAX_VALUE
+
+    private const val PARTICLE_PULSE_TICKS = 40L
+
+    private class ParkedPasture(val wakeTimer: TimerWheel.Timer<WorldBlockPos>) {
+        var pulseTimer: TimerWheel.Timer<WorldBlockPos>? = null
+    }
+
+    private var buckets: Array<LinkedHashSet<WorldBlockPos>> = emptyArray()
+    private val pendingWakes = ArrayList<WorldBlockPos>()
+    private var ticking = false
+
+    private var wakeTimers: TimerWheel<WorldBlockPos>? = null
+    private var pulseTimers: TimerWheel<WorldBlockPos>? = null
+    private val parkedPastures = HashMap<WorldBlockPos, ParkedPasture>()
+
+    val bucketCount: Int
+        get() = buckets.size
+
+    fun configure(bucketCount: Int) {
+        val previous = buckets
+        buckets = Array(bucketCount.coerceAtLeast(1)) { LinkedHashSet() }
+        previous.forEach { bucket -> bucket.forEach { bucketFor(it).add(it) } }
+    }
+
+    fun wake(worldPos: WorldBlockPos) {
+        unpark(worldPos)
+        if (ticking) {
+            pendingWakes.add(worldPos)
+        } else {
+            bucketFor(worldPos).add(worldPos)
+        }
+    }
+
+    fun forget(worldPos: WorldBlockPos) {
+        unpark(worldPos)
+        bucketFor(worldPos).remove(worldPos)
+        pendingWakes.remove(worldPos)
+    }
+
+    fun reset() {
+        buckets.forEach { it.clear() }
+        pendingWakes.clear()
+        parkedPastures.clear()
+        wakeTimers = null
+        pulseTimers = null
+    }
+
+    fun isActive(worldPos: WorldBlockPos): Boolean = worldPos in bucketFor(worldPos)
+
+    fun isParked(worldPos: WorldBlockPos): Boolean = worldPos in parkedPastures
+
+    fun activeCount(): Int = buckets.sumOf { it.size }
+
+    fun parkedCount(): Int = parkedPastures.size
+
+    private fun bucketFor(worldPos: WorldBlockPos): LinkedHashSet<WorldBlockPos> {
+        if (buckets.isEmpty()) configure(BreedingConfig.settings.breedingTickBuckets)
+        return buckets[Math.floorMod(HashCommon.mix(worldPos.pos.asLong()), buckets.size.toLong()).toInt()]
+    }
+
+    private fun park(worldPos: WorldBlockPos, wakeServerTick: Long, nextPulseServerTick: Long) {
+        val wakeWheel = wakeTimers ?: return
+        val pulseWheel = pulseTimers ?: return
+        unpark(worldPos)
+        val parked = ParkedPasture(wakeWheel.schedule(worldPos, wakeServerTick))
+        if (nextPulseServerTick < wakeServerTick) {
+            parked.pulseTimer = pulseWheel.schedule(worldPos, nextPulseServerTick)
+        }
+        parkedPastures[worldPos] = parked
+    }
+
+    private fun unpark(worldPos: WorldBlockPos) {
+        val parked = parkedPastures.remove(worldPos) ?: return
+        wakeTimers?.cancel(parked.wakeTimer)
+        parked.pulseTimer?.let { pulseTimers?.cancel(it) }
+    }
+
+    private fun pulse(server: MinecraftServer, worldPos: WorldBlockPos) {
+        val parked = parkedPastures[worldPos] ?: return
+        parked.pulseTimer = null
+        val state = CobblemonBreeding.getBreedingState(worldPos) ?: return
+        val world = state.worldKey?.let { server.getWorld(it) } ?: return
+        if (!world.isChunkLoaded(worldPos.pos)) return
+        val pastureBlockEntity = world.getBlockEntity(worldPos.pos) as? PokemonPastureBlockEntity ?: return
+        if (!BreedingManager.parentsTethered(pastureBlockEntity, state)) {
+            wake(worldPos)
+            return
+        }
+
+        BreedingManager.spawnCountdownParticles(world, worldPos.pos, state)
+        // The record is captured when the chunk saves; keep it dirty so the saved progress is at most a pulse old.
+        PastureSyncBatcher.markDirty(pastureBlockEntity)
+        val nextPulse = server.ticks + PARTICLE_PULSE_TICKS
+        if (nextPulse < parked.wakeTimer.deadline) {
+            parked.pulseTimer = pulseTimers?.schedule(worldPos, nextPulse)
+        }
+    }
+
+    internal fun tick(server: MinecraftServer) {
+        if (buckets.isEmpty()) configure(BreedingConfig.settings.breedingTickBuckets)
+        val now = server.ticks.toLong()
+        val wakeWheel = wakeTimers ?: TimerWheel<WorldBlockPos>(now).also { wakeTimers = it }
+        val pulseWheel = pulseTimers ?: TimerWheel<WorldBlockPos>(now).also { pulseTimers = it }
+
+        wakeWheel.advance(now) { worldPos ->
+            parkedPastures.remove(worldPos)?.pulseTimer?.let { pulseWheel.cancel(it) }
+            bucketFor(worldPos).add(worldPos)
+        }
+        pulseWheel.advance(now) { worldPos -> pulse(server, worldPos) }
+
+        ticking = true
+        try {
+            val iterator = buckets[server.ticks % buckets.size].iterator()
+            while (iterator.hasNext()) {
+                val worldPosKey = iterator.next()
+                val state = CobblemonBreeding.getBreedingState(worldPosKey)
+                if (state == null) {
+                    iterator.remove()
+                    continue
+                }
+
+                val world = state.worldKey?.let { server.getWorld(it) } ?: continue
+                val pos = worldPosKey.pos
+
+                if (world.getBlockEntity(pos) !is PokemonPastureBlockEntity) {
+                    iterator.remove()
+                    CobblemonBreeding.unregisterPastureOnUnload(worldPosKey)
+                    continue
+                }
+
+                val wakeAt = BreedingManager.tickBreedingProcess(world, pos, state)
+                when (wakeAt) {
+                    TICK_AGAIN -> {}
+                    SLEEP_UNTIL_WOKEN -> iterator.remove()
+                    else -> {
+                        val delay = wakeAt - world.time
+                        if (delay > buckets.size) {
+                            iterator.remove()
+                            val nextPulse = if (state.breedingStartTick == null) {
+                                Long.MAX_VALUE
+                            } else {
+                                now + (state.lastParticleTick + PARTICLE_PULSE_TICKS - world.time).coerceAtLeast(1L)
+                            }
+                            park(worldPosKey, now + delay, nextPulse)
+                        }
+                    }
+                }
+            }
+        } finally {
+            ticking = false
+        }
+
+        if (pendingWakes.isNotEmpty()) {
+            pendingWakes.forEach { bucketFor(it).add(it) }
+            pendingWakes.clear()
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.WorldBlockPos
+import net.minecraft.block.BlockState
+import net.minecraft.server.world.ServerWorld
+import net.minecraft.util.math.BlockPos
+import net.minecraft.util.math.ChunkPos
+import net.minecraft.util.math.MathHelper
+import net.minecraft.util.math.Vec3d
+
+/**
+ * Standing surfaces inside one pasture's roam box, one Y bitmask per block column.
+ *
+ * Bit `i` of a column is set when a Pokémon can stand at `minY + i`: the block below is solid and not a liquid,
+ * and the block itself is air or replaceable. A column is read from its already-loaded chunk the first time a
+ * query reaches it and is then kept current from block change notifications, so a query only reads the few
+ * columns it has not seen before and never loads chunks.
+ */
+class PastureSurface internal constructor(
+    val worldPos: WorldBlockPos,
+    private val minX: Int,
+    private val minY: Int,
+    private val minZ: Int
+) : BlockChangeListener {
+
+    private val columns = IntArray(WIDTH * WIDTH)
+    private val filled = BooleanArray(WIDTH * WIDTH)
+
+    internal var registration: BlockChangeDispatcher.Registration? = null
+
+    /** Reads one column if it has not been read yet. A column in an unloaded chunk stays empty and unread. */
+    private fun fillColumn(world: ServerWorld, columnX: Int, columnZ: Int) {
+        val column = columnX * WIDTH + columnZ
+        if (filled[column]) return
+        val x = minX + columnX
+        val z = minZ + columnZ
+        val chunk = world.chunkManager.getWorldChunk(x shr 4, z shr 4) ?: return
+        val pos = BlockPos.Mutable()
+        var mask = 0
+        var below = chunk.getBlockState(pos.set(x, minY - 1, z))
+        for (dy in 0 until HEIGHT) {
+            val at = chunk.getBlockState(pos.set(x, minY + dy, z))
+            if (isStandable(below, at)) mask = mask or (1 shl dy)
+            below = at
+        }
+        columns[column] = mask
+        filled[column] = true
+    }
+
+    /**
+     * The standable position nearest to ([x], [y], [z]), searching at most [MAX_SEARCH_RING] columns out from
+     * the starting column. Within a column the closest Y wins, preferring the lower one on a tie.
+     * @return null if no column in range has a surface
+     */
+    fun nearestStandable(world: ServerWorld, x: Double, y: Double, z: Double): Vec3d? {
+        val startX = MathHelper.floor(x) - minX
+        val startZ = MathHelper.floor(z) - minZ
+        val targetBit = MathHelper.floor(y) - minY
+
+        for (ring in 0..MAX_SEARCH_RING) {
+            var bestColumn = -1
+            var bestBit = 0
+            var bestScore = Int.MAX_VALUE
+            for (dx in -ring..ring) {
+                for (dz in -ring..ring) {
+                    if (ring > 0 && dx != -ring && dx != ring && dz != -ring && dz != ring) continue
+                    val columnX = startX + dx
+                    val columnZ = startZ + dz
+                    if (columnX < 0 || columnX >= WIDTH || columnZ < 0 || columnZ >= WIDTH) continue
+                    fillColumn(world, columnX, columnZ)
+                    val mask = columns[columnX * WIDTH + columnZ]
+                    if (mask == 0) continue
+                    val bit = nearestBit(mask, targetBit)
+                    val score = dx * dx + dz * dz + (bit - targetBit) * (bit - targetBit)
+                    if (score < bestScore) {
+                        bestScore = score
+                        bestColumn = columnX * WIDTH + columnZ
+                        bestBit = bit
+                    }
+                }
+            }
+            if (bestColumn >= 0) {
+                val columnX = bestColumn / WIDTH
+                val columnZ = bestColumn % WIDTH
+                val surfaceY = (minY + bestBit).toDouble()
+                return if (columnX == startX && columnZ == startZ) {
+                    Vec3d(x, surfaceY, z)
+                } else {
+                    Vec3d(minX + columnX + 0.5, surfaceY, minZ + columnZ + 0.5)
+                }
+            }
+        }
+        return null
+    }
+
+    override fun onBlockChanged(world: ServerWorld, pos: BlockPos, oldState: BlockState, newState: BlockState) {
+        val dx = pos.x - minX
+        val dz = pos.z - minZ
+        if (dx < 0 || dx >= WIDTH || dz < 0 || dz >= WIDTH) return
+        val dy = pos.y - minY
+        if (dy < -1 || dy >= HEIGHT) return
+
+        val column = dx * WIDTH + dz
+        if (!filled[column]) return
+        val scratch = BlockPos.Mutable()
+        if (dy >= 0) {
+            val below = world.getBlockState(scratch.set(pos.x, pos.y - 1, pos.z))
+            setBit(column, dy, isStandable(below, newState))
+        }
+        if (dy + 1 < HEIGHT) {
+            val above = world.getBlockState(scratch.set(pos.x, pos.y + 1, pos.z))
+            setBit(column, dy + 1, isStandable(newState, above))
+        }
+    }
+
+    override fun onChunkUnloaded(world: ServerWorld, chunkPos: ChunkPos) {
+        PastureSurfaceCache.invalidate(worldPos)
+    }
+
+    private fun setBit(column: Int, bit: Int, standable: Boolean) {
+        columns[column] = if (standable) columns[column] or (1 shl bit) else columns[column] and (1 shl bit).inv()
+    }
+
+    companion object {
+        /** Matches the roam box the pasture mixin sets: 5 blocks around the pasture, 6 extra above. */
+        const val HORIZONTAL_RADIUS = 5
+        const val DEPTH_BELOW = 5
+        const val HEIGHT_ABOVE = 11
+        const val WIDTH = 2 * HORIZONTAL_RADIUS + 1
+        const val HEIGHT = DEPTH_BELOW + HEIGHT_ABOVE + 1
+        const val MAX_SEARCH_RING = 3
+
+        @Suppress("DEPRECATION")
+        fun isStandable(below: BlockState, at: BlockState): Boolean =
+            below.isSolid && !below.isLiquid && (at.isAir || at.isReplaceable)
+
+        /** The set bit of [mask] closest to [target], taking the lower one on a tie. [mask] must not be 0. */
+        fun nearestBit(mask: Int, target: Int): Int {
+            val clamped = target.coerceIn(0, 31)
+            val atOrBelowMask = if (clamped == 31) -1 else (1 shl (clamped + 1)) - 1
+            val atOrBelow = mask and atOrBelowMask
+            val above = mask and atOrBelowMask.inv()
+            val lower = if (atOrBelow != 0) 31 - Integer.numberOfLeadingZeros(atOrBelow) else -1
+            val upper = if (above != 0) Integer.numberOfTrailingZeros(above) else -1
+            if (lower < 0) return upper
+            if (upper < 0) return lower
+            return if (target - lower <= upper - target) lower else upper
+        }
+    }
+}
+
+/**
+ * Owns the [PastureSurface] of every pasture that has needed a meeting point. Surfaces are created on first use,
+ * stay registered with [BlockChangeDispatcher], and are dropped when the pasture or one of its chunks unloads.
+ * Server thread only.
+ */
+object PastureSurfaceCache {
+
+    private val surfaces = HashMap<WorldBlockPos, PastureSurface>()
+
+    fun surfaceFor(world: ServerWorld, pasturePos: BlockPos): PastureSurface {
+        val worldPos = WorldBlockPos(world.registryKey, pasturePos)
+        surfaces[worldPos]?.let { return it }
+
+        val surface = PastureSurface(
+            worldPos,
+            pasturePos.x - PastureSurface.HORIZONTAL_RADIUS,
+            pasturePos.y - PastureSurface.DEPTH_BELOW,
+            pasturePos.z - PastureSurface.HORIZONTAL_RADIUS
+        )
+        surface.registration = BlockChangeDispatcher.register(
+            world.registryKey,
+            pasturePos.x - PastureSurface.HORIZONTAL_RADIUS, pasturePos.z - PastureSurface.HORIZONTAL_RADIUS,
+            pasturePos.x + PastureSurface.HORIZONTAL_RADIUS, pasturePos.z + PastureSurface.HORIZONTAL_RADIUS,
+            surface
+        )
+        surfaces[worldPos] = surface
+        return surface
+    }
+
+    fun invalidate(worldPos: WorldBlockPos) {
+        val surface = surfaces.remove(worldPos) ?: return
+        surface.registration?.remove()
+        surface.registration = null
+    }
+
+    fun clear() {
+        surfaces.values.forEach { it.registration?.remove() }
+        surfaces.clear()
+    }
+}
@@ -0,0 +1,142 @@
+package com.cobblebreeding.utils
+
+import com.cobblemon.mod.common.net.messages.client.pasture.PokemonPasturedPacket
+import io.netty.buffer.Unpooled
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking
+import net.minecraft.block.entity.BlockEntity
+import net.minecraft.network.RegistryByteBuf
+import net.minecraft.network.listener.ClientPlayPacketListener
+import net.minecraft.network.packet.Packet
+import net.minecraft.network.packet.s2c.play.BundleS2CPacket
+import net.minecraft.server.MinecraftServer
+import java.util.UUID
+
+/**
+ * Coalesces outbound pasture updates and block entity saves to once per tick.
+ *
+ * Pasture packets are queued per player and keyed by Pokémon, so a Pokémon updated twice in one tick is sent
+ * once. At the end of the tick each player gets everything queued for them in a single bundle. [markDirty]
+ * de-duplicates `markDirty` calls per block entity per tick. The counters report what the batching saved;
+ * `/cobblemonbreeding sync` shows them. Byte counts need an extra encode per packet, so they are only kept while
+ * the `sync` trace category is enabled. Server thread only.
+ */
+object PastureSyncBatcher {
+
+    /** Vanilla rejects bundles with more packets than this. */
+    private const val MAX_BUNDLE_SIZE = 4096
+
+    /** A bundle is framed by two delimiter packets, each a one-byte length prefix and a one-byte packet ID. */
+    private const val BUNDLE_FRAMING_BYTES = 4
+
+    /** [size] is -1 when the packet was queued without byte accounting. */
+    private class QueuedPacket(val packet: PokemonPasturedPacket, val size: Int)
+
+    private val pendingPackets = HashMap<UUID, LinkedHashMap<UUID, QueuedPacket>>()
+    private val pendingDirty = LinkedHashSet<BlockEntity>()
+
+    var packetsQueued = 0L
+        private set
+    var packetsSent = 0L
+        private set
+    var sendsIssued = 0L
+        private set
+    var duplicatesCoalesced = 0L
+        private set
+    /** Payload bytes of every queued packet, i.e. what sending each one separately would have cost. */
+    var bytesQueued = 0L
+        private set
+    /** Payload bytes actually sent, including bundle framing. */
+    var bytesSent = 0L
+        private set
+    var dirtyRequested = 0L
+        private set
+    var dirtyApplied = 0L
+        private set
+
+    /** Queues [packet] describing [pokemonId] for [playerId], replacing one queued earlier this tick. */
+    fun queuePastured(server: MinecraftServer, playerId: UUID, pokemonId: UUID, packet: PokemonPasturedPacket) {
+        packetsQueued++
+        val size = if (BreedingTrace.isCategoryEnabled(TraceCategory.SYNC)) encodedSize(server, packet) else -1
+        if (size >= 0) bytesQueued += size
+        val replaced = pendingPackets.getOrPut(playerId) { LinkedHashMap() }.put(pokemonId, QueuedPacket(packet, size))
+        if (replaced != null) duplicatesCoalesced++
+    }
+
+    fun markDirty(blockEntity: BlockEntity) {
+        dirtyRequested++
+        pendingDirty.add(blockEntity)
+    }
+
+    /** Sends everything queued this tick. Runs at the end of every server tick. */
+    fun flush(server: MinecraftServer) {
+        if (pendingDirty.isNotEmpty()) {
+            pendingDirty.forEach { blockEntity ->
+                if (!blockEntity.isRemoved) {
+                    blockEntity.markDirty()
+                    dirtyApplied++
+                }
+            }
+            pendingDirty.clear()
+        }
+
+        if (pendingPackets.isEmpty()) return
+        pendingPackets.forEach { (playerId, packets) ->
+            val player = server.playerManager.getPlayer(playerId)
+            if (player == null) {
+                discard(packets)
+                return@forEach
+            }
+            if (packets.size == 1) {
+                val queued = packets.values.first()
+                ServerPlayNetworking.send(player, queued.packet)
+                packetsSent++
+                sendsIssued++
+                if (queued.size >= 0) bytesSent += queued.size
+                return@forEach
+            }
+            packets.values.chunked(MAX_BUNDLE_SIZE - 1).forEach { chunk ->
+                val bundled: List<Packet<in ClientPlayPacketListener>> = chunk.map { ServerPlayNetworking.createS2CPacket(it.packet) }
+                player.networkHandler.sendPacket(BundleS2CPacket(bundled))
+                packetsSent += chunk.size
+                sendsIssued++
+                val measured = chunk.filter { it.size >= 0 }
+                if (measured.isNotEmpty()) bytesSent += measured.sumOf { it.size } + BUNDLE_FRAMING_BYTES
+            }
+        }
+        pendingPackets.clear()
+    }
+
+    fun onPlayerDisconnect(playerId: UUID) {
+        pendingPackets.remove(playerId)?.let { discard(it) }
+    }
+
+    /** Packets that were never sent would otherwise count as saved bytes. */
+    private fun discard(packets: Map<UUID, QueuedPacket>) {
+        packets.values.forEach { if (it.size >= 0) bytesQueued -= it.size }
+    }
+
+    fun clear() {
+        pendingPackets.clear()
+        pendingDirty.clear()
+    }
+
+    fun describeCounters(): String {
+        val bytes = if (BreedingTrace.isCategoryEnabled(TraceCategory.SYNC)) {
+            "bytes=$bytesSent/$bytesQueued (saved ${bytesQueued - bytesSent}B)"
+        } else {
+            "bytes=off (trace category sync)"
+        }
+        return "queued=$packetsQueued sent=$packetsSent sends=$sendsIssued (saved ${packetsSent - sendsIssued}) " +
+            "coalesced=$duplicatesCoalesced $bytes dirty=$dirtyApplied/$dirtyRequested"
+    }
+
+    private fun encodedSize(server: MinecraftServer, packet: PokemonPasturedPacket): Int {
+        val buffer = RegistryByteBuf(Unpooled.buffer(), server.registryManager)
+        return try {
+            packet.encode(buffer)
+            buffer.readableBytes()
+        } finally {
+            buffer.release()
+        }
+    }
+}
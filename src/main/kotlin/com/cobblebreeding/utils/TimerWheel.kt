@@ -0,0 +1,107 @@
+package com.cobblebreeding.utils
+
+/**
+ * Hierarchical timing wheel keyed by absolute tick.
+ *
+ * Three levels of 256 slots cover 2^24 ticks (about 9.7 days of game time); anything further out waits in an
+ * overflow list that is re-sorted once per full turn. Scheduling and cancelling are O(1), and [advance] only
+ * touches the slot for the current tick plus an occasional cascade, so thousands of parked timers cost
+ * nothing until they come due.
+ *
+ * Not thread-safe; only use it from the server thread.
+ */
+class TimerWheel<T : Any>(startTick: Long) {
+
+    class Timer<T : Any> internal constructor(val payload: T, val deadline: Long) {
+        var isCancelled = false
+            internal set
+    }
+
+    private var currentTick = startTick
+    private val levels = Array(LEVELS) { Array(SLOTS) { ArrayList<Timer<T>>() } }
+    private val overflow = ArrayList<Timer<T>>()
+    private val scratch = ArrayList<Timer<T>>()
+
+    var size = 0
+        private set
+
+    val tick: Long
+        get() = currentTick
+
+    /** Schedules [payload] to expire at [deadline]; deadlines in the past fire on the next tick. */
+    fun schedule(payload: T, deadline: Long): Timer<T> {
+        val timer = Timer(payload, maxOf(deadline, currentTick + 1))
+        place(timer)
+        size++
+        return timer
+    }
+
+    fun cancel(timer: Timer<T>) {
+        if (!timer.isCancelled) {
+            timer.isCancelled = true
+            size--
+        }
+    }
+
+    /** Moves the wheel forward to [now], handing every timer that expires on the way to [onExpire]. */
+    fun advance(now: Long, onExpire: (T) -> Unit) {
+        while (currentTick < now) {
+            val t = ++currentTick
+            if (t and OVERFLOW_MASK == 0L) cascade(overflow)
+            if (t and LEVEL_2_MASK == 0L) cascade(levels[2][slotIndex(t, 2)])
+            if (t and LEVEL_1_MASK == 0L) cascade(levels[1][slotIndex(t, 1)])
+
+            val due = levels[0][slotIndex(t, 0)]
+            if (due.isEmpty()) continue
+            scratch.addAll(due)
+            due.clear()
+            for (timer in scratch) {
+                if (timer.isCancelled) continue
+                timer.isCancelled = true
+                size--
+                onExpire(timer.payload)
+            }
+            scratch.clear()
+        }
+    }
+
+    fun clear(startTick: Long) {
+        levels.forEach { level -> level.forEach { it.clear() } }
+        overflow.clear()
+        size = 0
+        currentTick = startTick
+    }
+
+    private fun cascade(slot: ArrayList<Timer<T>>) {
+        if (slot.isEmpty()) return
+        scratch.addAll(slot)
+        slot.clear()
+        for (timer in scratch) {
+            if (!timer.isCancelled) place(timer)
+        }
+        scratch.clear()
+    }
+
+    private fun place(timer: Timer<T>) {
+        val deadline = timer.deadline
+        val now = currentTick
+        when {
+            deadline shr LEVEL_BITS == now shr LEVEL_BITS -> levels[0][slotIndex(deadline, 0)].add(timer)
+            deadline shr (2 * LEVEL_BITS) == now shr (2 * LEVEL_BITS) -> levels[1][slotIndex(deadline, 1)].add(timer)
+            deadline shr (3 * LEVEL_BITS) == now shr (3 * LEVEL_BITS) -> levels[2][slotIndex(deadline, 2)].add(timer)
+            else -> overflow.add(timer)
+        }
+    }
+
+    private fun slotIndex(tick: Long, level: Int): Int = ((tick shr (level * LEVEL_BITS)) and SLOT_MASK).toInt()
+
+    private companion object {
+        const val LEVELS = 3
+        const val LEVEL_BITS = 8
+        const val SLOTS = 1 shl LEVEL_BITS
+        const val SLOT_MASK = (SLOTS - 1).toLong()
+        const val LEVEL_1_MASK = (1L shl LEVEL_BITS) - 1
+        const val LEVEL_2_MASK = (1L shl (2 * LEVEL_BITS)) - 1
+        const val OVERFLOW_MASK = (1L shl (3 * LEVEL_BITS)) - 1
+    }
+}
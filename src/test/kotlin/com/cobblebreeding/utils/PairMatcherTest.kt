@@ -0,0 +1,184 @@
+package com.cobblebreeding.utils
+
+import com.cobblebreeding.utils.PairMatcher.Companion.DITTO
+import com.cobblebreeding.utils.PairMatcher.Companion.FEMALE
+import com.cobblebreeding.utils.PairMatcher.Companion.GENDERLESS
+import com.cobblebreeding.utils.PairMatcher.Companion.IGNORED
+import com.cobblebreeding.utils.PairMatcher.Companion.MALE
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+/**
+ * Every case is checked twice: against the pair it is expected to produce, and against [baselinePair], a copy of
+ * the filter/groupBy pairing [PairMatcher] replaced. Species are stand-in strings; like the matcher, the baseline
+ * only compares species and never consults egg groups.
+ */
+class PairMatcherTest {
+
+    private data class Entry(val kind: Int, val species: String?)
+
+    /** A matched pair as entry indices, or null for no pair. */
+    private data class Match(val first: Int, val second: Int, val isDittoPair: Boolean)
+
+    private val matcher = PairMatcher()
+
+    @Test
+    fun lonePokemonHasNoPair() {
+        assertPair(null, Entry(MALE, "eevee"))
+        assertPair(null, Entry(DITTO, "ditto"))
+    }
+
+    @Test
+    fun dittoPairsWithFirstGenderedPokemon() {
+        assertPair(
+            Match(1, 0, true),
+            Entry(MALE, "pikachu"), Entry(DITTO, "ditto"), Entry(FEMALE, "eevee")
+        )
+    }
+
+    @Test
+    fun dittoPrefersGenderlessOverGendered() {
+        assertPair(
+            Match(1, 2, true),
+            Entry(FEMALE, "eevee"), Entry(DITTO, "ditto"), Entry(GENDERLESS, "magnemite"), Entry(GENDERLESS, "voltorb")
+        )
+    }
+
+    @Test
+    fun dittoPairBeatsSameSpeciesPair() {
+        assertPair(
+            Match(2, 0, true),
+            Entry(MALE, "eevee"), Entry(FEMALE, "eevee"), Entry(DITTO, "ditto")
+        )
+    }
+
+    @Test
+    fun twoDittosFallBackToSpeciesPair() {
+        assertPair(
+            Match(2, 3, false),
+            Entry(DITTO, "ditto"), Entry(DITTO, "ditto"), Entry(MALE, "eevee"), Entry(FEMALE, "eevee")
+        )
+        assertPair(null, Entry(DITTO, "ditto"), Entry(DITTO, "ditto"), Entry(GENDERLESS, "magnemite"))
+    }
+
+    @Test
+    fun genderlessWithoutDittoHasNoPair() {
+        assertPair(null, Entry(GENDERLESS, "magnemite"), Entry(GENDERLESS, "magnemite"))
+    }
+
+    @Test
+    fun genderlessWithDittoPairs() {
+        assertPair(Match(1, 0, true), Entry(GENDERLESS, "magnemite"), Entry(DITTO, "ditto"))
+    }
+
+    @Test
+    fun sameSpeciesOppositeGendersPair() {
+        assertPair(Match(1, 2, false), Entry(MALE, "eevee"), Entry(MALE, "eevee"), Entry(FEMALE, "eevee"))
+    }
+
+    @Test
+    fun sameSexSameSpeciesHasNoPair() {
+        assertPair(null, Entry(FEMALE, "eevee"), Entry(FEMALE, "eevee"))
+    }
+
+    @Test
+    fun firstSpeciesByAppearanceWins() {
+        assertPair(
+            Match(0, 3, false),
+            Entry(MALE, "eevee"), Entry(MALE, "pikachu"), Entry(FEMALE, "pikachu"), Entry(FEMALE, "eevee")
+        )
+    }
+
+    @Test
+    fun sameEggGroupDifferentSpeciesHasNoPair() {
+        // Pikachu and Clefairy share the Fairy egg group, but only matching species pair.
+        assertPair(null, Entry(MALE, "pikachu"), Entry(FEMALE, "clefairy"))
+    }
+
+    @Test
+    fun incompatibleEggGroupsHaveNoPair() {
+        assertPair(null, Entry(MALE, "machop"), Entry(FEMALE, "goldeen"), Entry(FEMALE, "magikarp"))
+    }
+
+    @Test
+    fun undiscoveredEggGroupIsNotConsulted() {
+        // Egg groups were never checked, so Undiscovered species pair exactly as before.
+        assertPair(Match(0, 1, false), Entry(MALE, "pichu"), Entry(FEMALE, "pichu"))
+        assertPair(Match(0, 1, true), Entry(DITTO, "ditto"), Entry(GENDERLESS, "mewtwo"))
+    }
+
+    @Test
+    fun ignoredEntriesNeverPair() {
+        assertPair(
+            Match(1, 3, false),
+            Entry(IGNORED, null), Entry(MALE, "eevee"), Entry(IGNORED, "eevee"), Entry(FEMALE, "eevee")
+        )
+        // An ignored Ditto counts neither as the lone Ditto nor as a second one.
+        assertPair(Match(0, 2, true), Entry(DITTO, "ditto"), Entry(IGNORED, "ditto"), Entry(MALE, "eevee"))
+    }
+
+    @Test
+    fun eggTethersNeverPair() {
+        // Eggs are tethered as the genderless "egg" species but enter the matcher as IGNORED, so they never
+        // partner a lone Ditto.
+        assertPair(null, Entry(DITTO, "ditto"), Entry(IGNORED, "egg"))
+        assertPair(
+            Match(0, 2, true),
+            Entry(DITTO, "ditto"), Entry(IGNORED, "egg"), Entry(MALE, "eevee")
+        )
+    }
+
+    @Test
+    fun reusedMatcherMatchesBaseline() {
+        val random = Random(1234)
+        val kinds = intArrayOf(IGNORED, DITTO, GENDERLESS, MALE, FEMALE)
+        val species = arrayOf("eevee", "pikachu", "magnemite", "clefairy")
+        repeat(2_000) {
+            val size = random.nextInt(0, 33)
+            val entries = List(size) {
+                val kind = kinds[random.nextInt(kinds.size)]
+                Entry(kind, if (kind == DITTO) "ditto" else species[random.nextInt(species.size)])
+            }
+            assertEquals(baselinePair(entries), match(entries), "pasture $entries")
+        }
+    }
+
+    private fun assertPair(expected: Match?, vararg entries: Entry) {
+        val list = entries.toList()
+        assertEquals(expected, baselinePair(list), "baseline")
+        assertEquals(expected, match(list), "matcher")
+    }
+
+    private fun match(entries: List<Entry>): Match? {
+        matcher.reset(entries.size)
+        entries.forEach { matcher.add(it.kind, it.species) }
+        val result = matcher.match()
+        if (result == PairMatcher.NO_PAIR) return null
+        return Match(PairMatcher.first(result), PairMatcher.second(result), PairMatcher.isDittoPair(result))
+    }
+
+    /** The pairing as `BreedingManager` did it before [PairMatcher], with ignored entries dropped up front. */
+    private fun baselinePair(entries: List<Entry>): Match? {
+        val indexed = entries.withIndex().filter { it.value.kind != IGNORED }
+        if (indexed.size < 2) return null
+
+        val dittos = indexed.filter { it.value.kind == DITTO }
+        val genderlessNonDittos = indexed.filter { it.value.kind == GENDERLESS }
+        val genderedNonDittos = indexed.filter { it.value.kind == MALE || it.value.kind == FEMALE }
+
+        if (dittos.size == 1) {
+            if (genderlessNonDittos.isNotEmpty()) return Match(dittos.first().index, genderlessNonDittos.first().index, true)
+            if (genderedNonDittos.isNotEmpty()) return Match(dittos.first().index, genderedNonDittos.first().index, true)
+        }
+
+        val speciesMap = genderedNonDittos.groupBy { it.value.species }
+        for ((_, inSpecies) in speciesMap) {
+            if (inSpecies.size < 2) continue
+            val males = inSpecies.filter { it.value.kind == MALE }
+            val females = inSpecies.filter { it.value.kind == FEMALE }
+            if (males.isNotEmpty() && females.isNotEmpty()) return Match(males.first().index, females.first().index, false)
+        }
+        return null
+    }
+}